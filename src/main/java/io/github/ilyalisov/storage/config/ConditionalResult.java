@@ -0,0 +1,89 @@
+package io.github.ilyalisov.storage.config;
+
+import lombok.Getter;
+
+/**
+ * Result of conditional find of file, which is compared with version of
+ * copy known to caller.
+ */
+@Getter
+public class ConditionalResult {
+
+    /**
+     * Status of file.
+     */
+    private final Status status;
+
+    /**
+     * Found file, null if status is not FOUND.
+     */
+    private final StorageFile file;
+
+    /**
+     * Creates an object.
+     *
+     * @param status status of file
+     * @param file   found file, null if status is not FOUND
+     */
+    public ConditionalResult(
+            final Status status,
+            final StorageFile file
+    ) {
+        this.status = status;
+        this.file = file;
+    }
+
+    /**
+     * Creates result of found file.
+     *
+     * @param file found file
+     * @return result
+     */
+    public static ConditionalResult found(
+            final StorageFile file
+    ) {
+        return new ConditionalResult(Status.FOUND, file);
+    }
+
+    /**
+     * Creates result of file, which was not changed.
+     *
+     * @return result
+     */
+    public static ConditionalResult notModified() {
+        return new ConditionalResult(Status.NOT_MODIFIED, null);
+    }
+
+    /**
+     * Creates result of file, which does not exist.
+     *
+     * @return result
+     */
+    public static ConditionalResult notFound() {
+        return new ConditionalResult(Status.NOT_FOUND, null);
+    }
+
+    /**
+     * Status of file.
+     */
+    public enum Status {
+
+        /**
+         * File was changed or its version was not known, file is returned
+         * with content.
+         */
+        FOUND,
+
+        /**
+         * File has known version, content was not transferred.
+         */
+        NOT_MODIFIED,
+
+        /**
+         * File does not exist.
+         */
+        NOT_FOUND
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package io.github.ilyalisov.storage.config;
+
+import lombok.Getter;
+
+/**
+ * Cursor-based pagination object.
+ * Each page is fetched with one bounded listing request, no matter how
+ * deep it is.
+ */
+@Getter
+public class CursorPage {
+
+    /**
+     * Cursor returned with previous page, null for first page.
+     */
+    private final String cursor;
+
+    /**
+     * Size of page.
+     */
+    private final int pageSize;
+
+    /**
+     * Creates an object for first page.
+     *
+     * @param pageSize size of page
+     */
+    public CursorPage(
+            final int pageSize
+    ) {
+        this(
+                null,
+                pageSize
+        );
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param cursor   cursor returned with previous page
+     * @param pageSize size of page
+     */
+    public CursorPage(
+            final String cursor,
+            final int pageSize
+    ) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Page size must be positive number."
+            );
+        }
+        this.cursor = cursor;
+        this.pageSize = pageSize;
+    }
+
+}
@@ -0,0 +1,46 @@
+package io.github.ilyalisov.storage.config;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Result of folder deletion.
+ */
+@Getter
+public class DeleteResult {
+
+    /**
+     * Number of deleted files.
+     */
+    private final long deleted;
+
+    /**
+     * Names of files, which were not deleted because of errors.
+     */
+    private final List<String> failed;
+
+    /**
+     * Creates an object.
+     *
+     * @param deleted number of deleted files
+     * @param failed  names of files, which were not deleted
+     */
+    public DeleteResult(
+            final long deleted,
+            final List<String> failed
+    ) {
+        this.deleted = deleted;
+        this.failed = failed;
+    }
+
+    /**
+     * Checks if all files were deleted.
+     *
+     * @return true - if there were no errors, false - otherwise
+     */
+    public boolean isSuccessful() {
+        return failed.isEmpty();
+    }
+
+}
@@ -0,0 +1,19 @@
+package io.github.ilyalisov.storage.config;
+
+/**
+ * Kind of threads concurrent storage work runs on.
+ */
+public enum ExecutionMode {
+
+    /**
+     * Platform threads from thread pools.
+     */
+    PLATFORM_THREADS,
+
+    /**
+     * Virtual thread per task. Used only if JDK supports virtual threads,
+     * otherwise platform threads are used.
+     */
+    VIRTUAL_THREADS
+
+}
@@ -0,0 +1,46 @@
+package io.github.ilyalisov.storage.config;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Page of files fetched with CursorPage.
+ */
+@Getter
+public class FilePage {
+
+    /**
+     * Files of page.
+     */
+    private final List<StorageFile> files;
+
+    /**
+     * Next page, null if this page is the last one.
+     */
+    private final CursorPage next;
+
+    /**
+     * Creates an object.
+     *
+     * @param files files of page
+     * @param next  next page, null if this page is the last one
+     */
+    public FilePage(
+            final List<StorageFile> files,
+            final CursorPage next
+    ) {
+        this.files = files;
+        this.next = next;
+    }
+
+    /**
+     * Checks if there is next page.
+     *
+     * @return true - if there is next page, false - otherwise
+     */
+    public boolean hasNext() {
+        return next != null;
+    }
+
+}
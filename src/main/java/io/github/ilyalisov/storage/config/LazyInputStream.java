@@ -0,0 +1,99 @@
+package io.github.ilyalisov.storage.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Supplier;
+
+/**
+ * InputStream that opens underlying stream on first access.
+ */
+class LazyInputStream extends InputStream {
+
+    /**
+     * Supplier of underlying stream.
+     */
+    private final Supplier<InputStream> supplier;
+
+    /**
+     * Underlying stream, null until opened.
+     */
+    private InputStream stream;
+
+    /**
+     * Whether stream was closed.
+     */
+    private boolean closed;
+
+    /**
+     * Creates an object.
+     *
+     * @param supplier supplier of underlying stream
+     */
+    LazyInputStream(
+            final Supplier<InputStream> supplier
+    ) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * Opens underlying stream if it was not opened yet.
+     *
+     * @return underlying stream
+     * @throws IOException if stream was closed
+     */
+    private InputStream stream() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed.");
+        }
+        if (stream == null) {
+            stream = supplier.get();
+        }
+        return stream;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return stream().read();
+    }
+
+    @Override
+    public int read(
+            final byte[] b,
+            final int off,
+            final int len
+    ) throws IOException {
+        return stream().read(b, off, len);
+    }
+
+    @Override
+    public long skip(
+            final long n
+    ) throws IOException {
+        return stream().skip(n);
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (stream == null) {
+            return 0;
+        }
+        return stream.available();
+    }
+
+    @Override
+    public long transferTo(
+            final OutputStream out
+    ) throws IOException {
+        return stream().transferTo(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+}
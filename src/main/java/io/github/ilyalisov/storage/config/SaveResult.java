@@ -0,0 +1,54 @@
+package io.github.ilyalisov.storage.config;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * Result of saving of one file of bulk save.
+ */
+@Getter
+public class SaveResult {
+
+    /**
+     * Name of file with path.
+     */
+    private final String fileName;
+
+    /**
+     * Relative path to saved file, null if file was not saved.
+     */
+    private final Path path;
+
+    /**
+     * Error of saving, null if file was saved.
+     */
+    private final Throwable error;
+
+    /**
+     * Creates an object.
+     *
+     * @param fileName name of file with path
+     * @param path     relative path to saved file, null if it was not saved
+     * @param error    error of saving, null if file was saved
+     */
+    public SaveResult(
+            final String fileName,
+            final Path path,
+            final Throwable error
+    ) {
+        this.fileName = fileName;
+        this.path = path;
+        this.error = error;
+    }
+
+    /**
+     * Checks if file was saved.
+     *
+     * @return true - if there was no error, false - otherwise
+     */
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+}
@@ -2,17 +2,25 @@ package io.github.ilyalisov.storage.config;
 
 import lombok.Getter;
 import lombok.Setter;
+import lombok.SneakyThrows;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * File class.
+ * Input stream of found file is read directly from storage, so file must be
+ * closed after use.
  */
 @Getter
 @Setter
-public class StorageFile {
+public class StorageFile implements Closeable {
 
     /**
      * Path to store file in.
@@ -29,11 +37,39 @@ public class StorageFile {
      */
     private String contentType;
 
+    /**
+     * Size of file in bytes, -1 if unknown.
+     */
+    private long size = -1;
+
+    /**
+     * Version of content of file, null if unknown. Version changes when
+     * file is overwritten, format depends on storage.
+     */
+    private String etag;
+
+    /**
+     * Time of last modification of file, null if unknown.
+     */
+    private Instant lastModified;
+
+    /**
+     * Encoding, which content is stored with, like "gzip" or "deflate",
+     * null if content is stored as is. Encoding is kept in custom metadata
+     * of file, content is not decoded by storage.
+     */
+    private String contentEncoding;
+
     /**
      * InputStream with file data.
      */
     private InputStream inputStream;
 
+    /**
+     * Local file with file data, null if data is read from input stream.
+     */
+    private Path source;
+
     /**
      * Creates an object.
      *
@@ -80,6 +116,69 @@ public class StorageFile {
         this.inputStream = inputStream;
     }
 
+    /**
+     * Creates an object with content, which is opened only when it is read.
+     *
+     * @param fileName    name of file
+     * @param path        path to file
+     * @param contentType content type
+     * @param size        size of file in bytes, -1 if unknown
+     * @param content     supplier of input stream with file data
+     */
+    public StorageFile(
+            final String fileName,
+            final Path path,
+            final String contentType,
+            final long size,
+            final Supplier<InputStream> content
+    ) {
+        this(
+                fileName,
+                path,
+                contentType,
+                new LazyInputStream(content)
+        );
+        this.size = size;
+    }
+
+    /**
+     * Creates an object with data of local file. Size of file is known, so
+     * storage can upload it without buffering, input stream is opened only
+     * if it is read.
+     *
+     * @param fileName    name of file
+     * @param path        path to file
+     * @param contentType content type
+     * @param source      local file with file data
+     */
+    public StorageFile(
+            final String fileName,
+            final Path path,
+            final String contentType,
+            final Path source
+    ) {
+        this(
+                fileName,
+                path,
+                contentType,
+                size(source),
+                () -> open(source)
+        );
+        this.source = source;
+    }
+
+    /**
+     * Closes input stream with file data.
+     *
+     * @throws IOException if stream can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (inputStream != null) {
+            inputStream.close();
+        }
+    }
+
     /**
      * Checks if file name contains extension.
      *
@@ -95,6 +194,20 @@ public class StorageFile {
                 .isPresent();
     }
 
+    @SneakyThrows
+    private static long size(
+            final Path source
+    ) {
+        return Files.size(source);
+    }
+
+    @SneakyThrows
+    private static InputStream open(
+            final Path source
+    ) {
+        return Files.newInputStream(source);
+    }
+
     private void updatePath(
             final String fileName
     ) {
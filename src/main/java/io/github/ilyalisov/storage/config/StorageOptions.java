@@ -0,0 +1,90 @@
+package io.github.ilyalisov.storage.config;
+
+import io.github.ilyalisov.storage.metrics.StorageMetrics;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Options of storage service.
+ */
+@Getter
+@Builder
+public class StorageOptions {
+
+    /**
+     * Whether content of found files is read into memory at once.
+     * By default, content is streamed from storage and caller must close
+     * the stream.
+     */
+    private final boolean bufferContent;
+
+    /**
+     * Size of part in bytes for uploads of streams with unknown length.
+     * Each part is held in memory while it is uploaded. MinIO requires parts
+     * to be at least 5 MiB.
+     */
+    @Builder.Default
+    private final int partSize = 16 * 1024 * 1024;
+
+    /**
+     * Number of parts of one file uploaded in parallel.
+     */
+    @Builder.Default
+    private final int parallelParts = 4;
+
+    /**
+     * Size of chunk in bytes for resumable uploads to Firebase. Each chunk
+     * is held in memory while it is uploaded and is retried on failure.
+     * Must be a multiple of 256 KiB.
+     */
+    @Builder.Default
+    private final int chunkSize = 15 * 1024 * 1024;
+
+    /**
+     * Maximum number of concurrent requests of bulk operations, like
+     * deletion of folder, bulk save or fetching metadata of listed files.
+     */
+    @Builder.Default
+    private final int concurrency = 4;
+
+    /**
+     * Maximum total size in bytes of files uploaded at once by bulk save.
+     * File of unknown size is counted as buffer, which service holds in
+     * memory while it uploads file. Default fits default number of uploads
+     * of unknown size with default parts, which are uploaded in parallel.
+     */
+    @Builder.Default
+    private final long maxBytesInFlight = 4L * 5 * 16 * 1024 * 1024;
+
+    /**
+     * Kind of threads bulk operations and asynchronous methods run on.
+     */
+    @Builder.Default
+    private final ExecutionMode executionMode = ExecutionMode.PLATFORM_THREADS;
+
+    /**
+     * Executor of blocking work of asynchronous methods. If it is not set,
+     * service creates executor for execution mode.
+     */
+    private final Executor executor;
+
+    /**
+     * Receiver of metrics of operations. By default, metrics are not
+     * recorded.
+     */
+    @Builder.Default
+    private final StorageMetrics metrics = StorageMetrics.NOOP;
+
+    /**
+     * Returns options with default values.
+     *
+     * @return options
+     */
+    public static StorageOptions defaults() {
+        return StorageOptions.builder()
+                .build();
+    }
+
+}
@@ -0,0 +1,195 @@
+package io.github.ilyalisov.storage.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Metrics of storage service recorded to Micrometer registry. Micrometer
+ * is optional dependency, it must be added to application to use this
+ * class.
+ * <p>
+ * Recorded meters:
+ * <ul>
+ *     <li>{@code storage.operation} - timer of operations with histogram,
+ *     tagged by operation and outcome;</li>
+ *     <li>{@code storage.operation.active} - gauge of operations in flight,
+ *     tagged by operation;</li>
+ *     <li>{@code storage.errors} - counter of errors, tagged by operation
+ *     and exception;</li>
+ *     <li>{@code storage.requests} - counter of requests to backend, tagged
+ *     by request;</li>
+ *     <li>{@code storage.bytes.read} and {@code storage.bytes.written} -
+ *     counters of bytes of content.</li>
+ * </ul>
+ */
+public class MicrometerStorageMetrics implements StorageMetrics {
+
+    /**
+     * Registry of meters.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Meters of operations by name of operation.
+     */
+    private final Map<String, OperationMeters> operations =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Counters of requests by name of request.
+     */
+    private final Map<String, Counter> requests = new ConcurrentHashMap<>();
+
+    /**
+     * Counter of bytes read.
+     */
+    private final Counter bytesRead;
+
+    /**
+     * Counter of bytes written.
+     */
+    private final Counter bytesWritten;
+
+    /**
+     * Creates an object.
+     *
+     * @param registry registry of meters
+     */
+    public MicrometerStorageMetrics(
+            final MeterRegistry registry
+    ) {
+        this.registry = registry;
+        this.bytesRead = Counter.builder("storage.bytes.read")
+                .baseUnit("bytes")
+                .description("Bytes of content read from storage")
+                .register(registry);
+        this.bytesWritten = Counter.builder("storage.bytes.written")
+                .baseUnit("bytes")
+                .description("Bytes of content written to storage")
+                .register(registry);
+    }
+
+    @Override
+    public Sample start(
+            final String operation
+    ) {
+        OperationMeters meters = operations.computeIfAbsent(
+                operation,
+                OperationMeters::new
+        );
+        meters.active.incrementAndGet();
+        Timer.Sample sample = Timer.start(registry);
+        return new Sample() {
+            @Override
+            public void success() {
+                meters.active.decrementAndGet();
+                sample.stop(meters.success);
+            }
+
+            @Override
+            public void failure(
+                    final Throwable error
+            ) {
+                meters.active.decrementAndGet();
+                sample.stop(meters.failure);
+                error(operation, error);
+            }
+        };
+    }
+
+    @Override
+    public void error(
+            final String operation,
+            final Throwable error
+    ) {
+        Counter.builder("storage.errors")
+                .tag("operation", operation)
+                .tag("exception", error.getClass().getSimpleName())
+                .description("Errors of storage operations")
+                .register(registry)
+                .increment();
+    }
+
+    @Override
+    public void request(
+            final String request
+    ) {
+        requests.computeIfAbsent(
+                request,
+                name -> Counter.builder("storage.requests")
+                        .tag("request", name)
+                        .description("Requests sent to storage backend")
+                        .register(registry)
+        ).increment();
+    }
+
+    @Override
+    public void bytesRead(
+            final long bytes
+    ) {
+        bytesRead.increment(bytes);
+    }
+
+    @Override
+    public void bytesWritten(
+            final long bytes
+    ) {
+        bytesWritten.increment(bytes);
+    }
+
+    /**
+     * Meters of one operation.
+     */
+    private final class OperationMeters {
+
+        /**
+         * Number of operations in flight.
+         */
+        private final AtomicInteger active = new AtomicInteger();
+
+        /**
+         * Timer of successful operations.
+         */
+        private final Timer success;
+
+        /**
+         * Timer of failed operations.
+         */
+        private final Timer failure;
+
+        private OperationMeters(
+                final String operation
+        ) {
+            this.success = timer(operation, "success");
+            this.failure = timer(operation, "error");
+            Gauge.builder(
+                            "storage.operation.active",
+                            active,
+                            AtomicInteger::get
+                    )
+                    .tag("operation", operation)
+                    .description("Storage operations in flight")
+                    .register(registry);
+        }
+
+        private Timer timer(
+                final String operation,
+                final String outcome
+        ) {
+            return Timer.builder("storage.operation")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .description("Duration of storage operations")
+                    .register(registry);
+        }
+
+    }
+
+}
@@ -0,0 +1,103 @@
+package io.github.ilyalisov.storage.metrics;
+
+/**
+ * Receiver of metrics of storage service. Services report duration and
+ * outcome of every operation, bytes read and written, and requests sent
+ * to backend, so one call of service, which results in several requests,
+ * is visible. All methods do nothing by default, implementations override
+ * only metrics they are interested in.
+ */
+public interface StorageMetrics {
+
+    /**
+     * Metrics, which are not recorded.
+     */
+    StorageMetrics NOOP = new StorageMetrics() {
+    };
+
+    /**
+     * Starts operation of service, like "find" or "save". Operation is
+     * in flight until returned sample is finished.
+     *
+     * @param operation name of operation
+     * @return sample of operation
+     */
+    default Sample start(
+            final String operation
+    ) {
+        return Sample.NOOP;
+    }
+
+    /**
+     * Records error of operation, which was not thrown to caller, like
+     * failed request of find, which returns empty result.
+     *
+     * @param operation name of operation
+     * @param error     error
+     */
+    default void error(
+            final String operation,
+            final Throwable error
+    ) {
+    }
+
+    /**
+     * Records request sent to backend, like "getObject" or "statObject".
+     *
+     * @param request name of request
+     */
+    default void request(
+            final String request
+    ) {
+    }
+
+    /**
+     * Records bytes of content read from storage.
+     *
+     * @param bytes number of bytes
+     */
+    default void bytesRead(
+            final long bytes
+    ) {
+    }
+
+    /**
+     * Records bytes of content written to storage.
+     *
+     * @param bytes number of bytes
+     */
+    default void bytesWritten(
+            final long bytes
+    ) {
+    }
+
+    /**
+     * Sample of one operation in flight.
+     */
+    interface Sample {
+
+        /**
+         * Sample, which is not recorded.
+         */
+        Sample NOOP = new Sample() {
+        };
+
+        /**
+         * Finishes operation, which completed normally.
+         */
+        default void success() {
+        }
+
+        /**
+         * Finishes operation, which failed with error.
+         *
+         * @param error error
+         */
+        default void failure(
+                final Throwable error
+        ) {
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.FilePage;
+import io.github.ilyalisov.storage.config.Page;
+import io.github.ilyalisov.storage.config.StorageFile;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * StorageService with asynchronous methods, which do not block calling
+ * thread.
+ */
+public interface AsyncStorageService extends StorageService {
+
+    /**
+     * Finds file by its name asynchronously.
+     *
+     * @param fileName name of file
+     * @return future of optional of file
+     */
+    CompletableFuture<Optional<StorageFile>> findAsync(
+            String fileName
+    );
+
+    /**
+     * Finds file by its name asynchronously.
+     *
+     * @param fileName name of file
+     * @param path     path to file
+     * @return future of optional of file
+     */
+    default CompletableFuture<Optional<StorageFile>> findAsync(
+            final String fileName,
+            final Path path
+    ) {
+        return findAsync(fileName(path, fileName));
+    }
+
+    /**
+     * Finds all files in folder asynchronously.
+     *
+     * @param path path to folder
+     * @param page pagination of results
+     * @return future of list of files
+     */
+    CompletableFuture<List<StorageFile>> findAllAsync(
+            Path path,
+            Page page
+    );
+
+    /**
+     * Finds page of files in folder asynchronously.
+     *
+     * @param path path to folder
+     * @param page cursor-based pagination of results
+     * @return future of page of files
+     */
+    CompletableFuture<FilePage> findAllAsync(
+            Path path,
+            CursorPage page
+    );
+
+    /**
+     * Returns publisher of files in folder. Pages of listing are fetched
+     * asynchronously, so thread, which requests files, is not blocked.
+     *
+     * @param path     path to folder
+     * @param pageSize number of files fetched with one listing request
+     * @return publisher of files
+     */
+    @Override
+    default Flow.Publisher<StorageFile> publishAll(
+            final Path path,
+            final int pageSize
+    ) {
+        return new ListingPublisher(
+                page -> findAllAsync(path, page),
+                new CursorPage(pageSize)
+        );
+    }
+
+    /**
+     * Checks if file with name exists asynchronously.
+     *
+     * @param fileName name of file
+     * @return future of true - if file exists, false - otherwise
+     */
+    CompletableFuture<Boolean> existsAsync(
+            String fileName
+    );
+
+    /**
+     * Checks if file with name and path exists asynchronously.
+     *
+     * @param fileName name of file
+     * @param path     path to file
+     * @return future of true - if file exists, false - otherwise
+     */
+    default CompletableFuture<Boolean> existsAsync(
+            final String fileName,
+            final Path path
+    ) {
+        return existsAsync(fileName(path, fileName));
+    }
+
+    /**
+     * Saves file to storage asynchronously.
+     *
+     * @param file file to be saved
+     * @return future of relative path to file
+     */
+    CompletableFuture<Path> saveAsync(
+            StorageFile file
+    );
+
+    /**
+     * Deletes file from storage asynchronously.
+     *
+     * @param fileName name of file to be deleted
+     * @return future of deletion
+     */
+    CompletableFuture<Void> deleteAsync(
+            String fileName
+    );
+
+    /**
+     * Deletes file with path from storage asynchronously.
+     *
+     * @param fileName name of file to be deleted
+     * @param path     path to file
+     * @return future of deletion
+     */
+    default CompletableFuture<Void> deleteAsync(
+            final String fileName,
+            final Path path
+    ) {
+        return deleteAsync(fileName(path, fileName));
+    }
+
+    /**
+     * Deletes all folder from storage asynchronously.
+     *
+     * @param path path to folder to be deleted
+     * @return future of number of deleted files and names of files failed
+     * to delete
+     */
+    CompletableFuture<DeleteResult> deleteAsync(
+            Path path
+    );
+
+}
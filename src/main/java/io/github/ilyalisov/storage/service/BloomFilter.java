@@ -0,0 +1,141 @@
+package io.github.ilyalisov.storage.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of strings. It never gives false negatives,
+ * false positives happen with configured probability while number of added
+ * keys does not exceed expected one.
+ */
+class BloomFilter {
+
+    /**
+     * Bits of filter.
+     */
+    private final AtomicLongArray bits;
+
+    /**
+     * Number of bits.
+     */
+    private final long size;
+
+    /**
+     * Number of hash functions.
+     */
+    private final int hashes;
+
+    /**
+     * Creates an object.
+     *
+     * @param expectedKeys      expected number of keys
+     * @param falsePositiveRate probability of false positives
+     */
+    BloomFilter(
+            final long expectedKeys,
+            final double falsePositiveRate
+    ) {
+        if (expectedKeys <= 0) {
+            throw new IllegalArgumentException(
+                    "Expected number of keys must be positive number."
+            );
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException(
+                    "False positive rate must be between 0 and 1."
+            );
+        }
+        double ln2 = Math.log(2);
+        long bitCount = (long) Math.ceil(
+                -expectedKeys * Math.log(falsePositiveRate) / (ln2 * ln2)
+        );
+        int words = (int) Math.min(
+                Integer.MAX_VALUE - 8,
+                Math.max(1, (bitCount + 63) / 64)
+        );
+        this.bits = new AtomicLongArray(words);
+        this.size = (long) words * 64;
+        this.hashes = (int) Math.max(
+                1,
+                Math.round((double) size / expectedKeys * ln2)
+        );
+    }
+
+    /**
+     * Adds key to filter.
+     *
+     * @param key key
+     */
+    void add(
+            final String key
+    ) {
+        long hash1 = hash(key);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, size);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0
+                    && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    /**
+     * Checks if key might have been added to filter.
+     *
+     * @param key key
+     * @return false - if key was never added, true - if it probably was
+     */
+    boolean mightContain(
+            final String key
+    ) {
+        long hash1 = hash(key);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, size);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes 64-bit FNV-1a hash of UTF-8 bytes of key.
+     *
+     * @param key key
+     * @return hash
+     */
+    static long hash(
+            final String key
+    ) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Spreads bits of hash with MurmurHash3 finalizer.
+     *
+     * @param hash hash
+     * @return mixed hash
+     */
+    static long mix(
+            final long hash
+    ) {
+        long result = hash;
+        result ^= result >>> 33;
+        result *= 0xFF51AFD7ED558CCDL;
+        result ^= result >>> 33;
+        result *= 0xC4CEB93FE1A85EC9L;
+        result ^= result >>> 33;
+        return result;
+    }
+
+}
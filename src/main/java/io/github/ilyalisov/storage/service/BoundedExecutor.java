@@ -0,0 +1,74 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.ExecutionMode;
+import lombok.SneakyThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Executor of bulk operation tasks with bounded number of running tasks.
+ * Submitting blocks while all permits are taken, so producer of tasks does
+ * not run ahead of storage.
+ */
+class BoundedExecutor implements AutoCloseable {
+
+    /**
+     * Executor of tasks.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Permits for running tasks.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Creates an object.
+     *
+     * @param mode        execution mode
+     * @param concurrency maximum number of running tasks
+     */
+    BoundedExecutor(
+            final ExecutionMode mode,
+            final int concurrency
+    ) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException(
+                    "Concurrency must be positive number."
+            );
+        }
+        this.executor = StorageExecutors.newExecutor(mode, concurrency);
+        this.permits = new Semaphore(concurrency);
+    }
+
+    /**
+     * Submits task, waits for free permit if all of them are taken.
+     *
+     * @param task task
+     * @param <T>  type of result
+     * @return future of result
+     */
+    @SneakyThrows
+    <T> CompletableFuture<T> submit(
+            final Supplier<T> task
+    ) {
+        permits.acquire();
+        try {
+            return CompletableFuture.supplyAsync(task, executor)
+                    .whenComplete((result, e) -> permits.release());
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+}
@@ -0,0 +1,212 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.SaveResult;
+import io.github.ilyalisov.storage.config.StorageFile;
+import io.github.ilyalisov.storage.config.StorageOptions;
+import lombok.SneakyThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Bulk save of files with bounded parallelism and bytes in flight. Next
+ * file is taken from source only when there is free upload slot and its
+ * size fits the limit of bytes, so source is never read ahead.
+ */
+final class BulkSave {
+
+    /**
+     * Service, which saves files.
+     */
+    private final StorageService service;
+
+    /**
+     * Options with limits of bulk save.
+     */
+    private final StorageOptions options;
+
+    /**
+     * Receiver of results.
+     */
+    private final Consumer<SaveResult> results;
+
+    /**
+     * Lock, which makes results be reported one at a time.
+     */
+    private final Object resultLock = new Object();
+
+    /**
+     * Uploads in flight.
+     */
+    private final Set<CompletableFuture<Void>> uploads =
+            ConcurrentHashMap.newKeySet();
+
+    /**
+     * Number of bytes, which may be taken by new uploads.
+     */
+    private long availableBytes;
+
+    /**
+     * Creates an object.
+     *
+     * @param service service, which saves files
+     * @param options options with limits of bulk save
+     * @param results receiver of results
+     */
+    BulkSave(
+            final StorageService service,
+            final StorageOptions options,
+            final Consumer<SaveResult> results
+    ) {
+        if (options.getMaxBytesInFlight() <= 0) {
+            throw new IllegalArgumentException(
+                    "Maximum bytes in flight must be positive number."
+            );
+        }
+        this.service = service;
+        this.options = options;
+        this.results = results;
+        this.availableBytes = options.getMaxBytesInFlight();
+    }
+
+    /**
+     * Saves all files of source and waits for uploads to complete. Each
+     * file is closed after it is saved.
+     *
+     * @param files source of files
+     */
+    void run(
+            final Iterator<StorageFile> files
+    ) {
+        try (BoundedExecutor executor = new BoundedExecutor(
+                options.getExecutionMode(),
+                options.getConcurrency()
+        )) {
+            try {
+                while (files.hasNext()) {
+                    StorageFile file = files.next();
+                    long bytes = weight(file);
+                    acquire(bytes);
+                    CompletableFuture<Void> upload;
+                    try {
+                        upload = executor.submit(() -> {
+                            save(file);
+                            return null;
+                        });
+                    } catch (RuntimeException e) {
+                        release(bytes);
+                        throw e;
+                    }
+                    uploads.add(upload);
+                    upload.whenComplete((result, e) -> {
+                        release(bytes);
+                        uploads.remove(upload);
+                    });
+                }
+            } finally {
+                for (CompletableFuture<Void> upload
+                        : new ArrayList<>(uploads)) {
+                    try {
+                        upload.join();
+                    } catch (CompletionException e) {
+                        // failure is reported in result of file
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves one file and reports result.
+     *
+     * @param file file
+     */
+    private void save(
+            final StorageFile file
+    ) {
+        String fileName = service.fileName(
+                file.getPath(),
+                file.getFileName()
+        );
+        SaveResult result;
+        try {
+            Path path = service.save(file);
+            result = new SaveResult(fileName, path, null);
+        } catch (Exception e) {
+            result = new SaveResult(fileName, null, e);
+        } finally {
+            close(file);
+        }
+        synchronized (resultLock) {
+            results.accept(result);
+        }
+    }
+
+    /**
+     * Closes saved file. Error of closing does not fail saved file.
+     *
+     * @param file file
+     */
+    private static void close(
+            final StorageFile file
+    ) {
+        try {
+            file.close();
+        } catch (IOException e) {
+            // content was already read
+        }
+    }
+
+    /**
+     * Returns number of bytes file takes while it is uploaded. Content of
+     * unknown size takes buffer, which service holds while it uploads file.
+     * File larger than the limit takes whole limit and is uploaded alone.
+     *
+     * @param file file
+     * @return number of bytes
+     */
+    private long weight(
+            final StorageFile file
+    ) {
+        long size = file.getSize();
+        if (size < 0) {
+            size = service.getUploadBufferSize();
+        }
+        return Math.min(size, options.getMaxBytesInFlight());
+    }
+
+    /**
+     * Waits until there are enough bytes available and takes them.
+     *
+     * @param bytes number of bytes
+     */
+    @SneakyThrows
+    private synchronized void acquire(
+            final long bytes
+    ) {
+        while (availableBytes < bytes) {
+            wait();
+        }
+        availableBytes -= bytes;
+    }
+
+    /**
+     * Returns bytes of completed upload.
+     *
+     * @param bytes number of bytes
+     */
+    private synchronized void release(
+            final long bytes
+    ) {
+        availableBytes += bytes;
+        notifyAll();
+    }
+
+}
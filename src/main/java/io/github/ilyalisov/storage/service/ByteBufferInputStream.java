@@ -0,0 +1,67 @@
+package io.github.ilyalisov.storage.service;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * InputStream reading remaining bytes of buffer.
+ */
+class ByteBufferInputStream extends InputStream {
+
+    /**
+     * Buffer with content, its position is position of stream.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates an object. Stream reads its own view of buffer, so position
+     * of passed buffer is not changed.
+     *
+     * @param buffer buffer with content
+     */
+    ByteBufferInputStream(
+            final ByteBuffer buffer
+    ) {
+        this.buffer = buffer.duplicate();
+    }
+
+    @Override
+    public int read() {
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(
+            final byte[] bytes,
+            final int offset,
+            final int length
+    ) {
+        if (length == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public long skip(
+            final long n
+    ) {
+        int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+}
@@ -0,0 +1,313 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.StorageFile;
+import lombok.SneakyThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StorageService decorator, which coalesces concurrent reads of the same
+ * file. When several threads find or check the same file at once, only the
+ * first of them calls decorated service, others wait for its result. If
+ * other threads wait for found file, its content is read into memory and
+ * shared, if it is not larger than limit, concurrent reads of larger files
+ * are not coalesced. File found without waiting threads is streamed to its
+ * reader as is. Results are not kept after fetch completes.
+ */
+public class CoalescingStorageService extends DelegatingStorageService {
+
+    /**
+     * Maximum size of shared content in bytes.
+     */
+    private final int maxBufferedBytes;
+
+    /**
+     * Fetches of files in flight by name.
+     */
+    private final Map<String, Flight> finds = new ConcurrentHashMap<>();
+
+    /**
+     * Checks of files in flight by name.
+     */
+    private final Map<String, CompletableFuture<Boolean>> checks =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Number of calls, which were answered with result of another call.
+     */
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Creates an object.
+     *
+     * @param delegate         decorated service
+     * @param maxBufferedBytes maximum size of shared content in bytes
+     */
+    public CoalescingStorageService(
+            final StorageService delegate,
+            final int maxBufferedBytes
+    ) {
+        super(delegate);
+        if (maxBufferedBytes <= 0) {
+            throw new IllegalArgumentException(
+                    "Buffer size must be positive number."
+            );
+        }
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    /**
+     * Returns number of calls, which were answered with result of another
+     * concurrent call.
+     *
+     * @return number of coalesced calls
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    @Override
+    @SneakyThrows
+    public Optional<StorageFile> find(
+            final String fileName
+    ) {
+        Flight flight = new Flight();
+        Flight running = finds.compute(fileName, (name, current) -> {
+            if (current == null) {
+                return flight;
+            }
+            current.waiters.incrementAndGet();
+            return current;
+        });
+        if (running != flight) {
+            Fetched fetched = await(running.result);
+            if (fetched != null && fetched.content == null) {
+                return getDelegate().find(fileName);
+            }
+            coalesced.increment();
+            return Optional.ofNullable(fetched)
+                    .map(shared -> shared.file(fileName));
+        }
+        try {
+            Optional<StorageFile> found;
+            int waiters;
+            try {
+                found = getDelegate().find(fileName);
+            } finally {
+                waiters = detach(fileName, flight);
+            }
+            if (found.isEmpty()) {
+                flight.result.complete(null);
+                return found;
+            }
+            StorageFile file = found.get();
+            if (waiters == 0 || file.getSize() > maxBufferedBytes) {
+                flight.result.complete(new Fetched(file, null));
+                return found;
+            }
+            byte[] content = file.getInputStream()
+                    .readNBytes(maxBufferedBytes + 1);
+            if (content.length > maxBufferedBytes) {
+                flight.result.complete(new Fetched(file, null));
+                file.setInputStream(new SequenceInputStream(
+                        new ByteArrayInputStream(content),
+                        file.getInputStream()
+                ));
+                return found;
+            }
+            file.close();
+            Fetched fetched = new Fetched(file, content);
+            flight.result.complete(fetched);
+            return Optional.of(fetched.file(fileName));
+        } catch (Throwable e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean exists(
+            final String fileName
+    ) {
+        CompletableFuture<Boolean> check = new CompletableFuture<>();
+        CompletableFuture<Boolean> running = checks.putIfAbsent(
+                fileName,
+                check
+        );
+        if (running != null) {
+            boolean exists = await(running);
+            coalesced.increment();
+            return exists;
+        }
+        try {
+            boolean exists = getDelegate().exists(fileName);
+            check.complete(exists);
+            return exists;
+        } catch (Throwable e) {
+            check.completeExceptionally(e);
+            throw e;
+        } finally {
+            checks.remove(fileName, check);
+        }
+    }
+
+    @Override
+    public Path save(
+            final StorageFile file
+    ) {
+        String fileName = fileName(file.getPath(), file.getFileName());
+        Path saved = getDelegate().save(file);
+        finds.remove(fileName);
+        checks.remove(fileName);
+        return saved;
+    }
+
+    @Override
+    public void delete(
+            final String fileName
+    ) {
+        getDelegate().delete(fileName);
+        finds.remove(fileName);
+        checks.remove(fileName);
+    }
+
+    @Override
+    public DeleteResult delete(
+            final Path path
+    ) {
+        DeleteResult result = getDelegate().delete(path);
+        String folder = path + "/";
+        finds.keySet().removeIf(key -> key.startsWith(folder));
+        checks.keySet().removeIf(key -> key.startsWith(folder));
+        return result;
+    }
+
+    /**
+     * Removes fetch from fetches in flight, so no more calls wait for it.
+     *
+     * @param fileName name of file
+     * @param flight   fetch
+     * @return number of calls, which wait for fetch
+     */
+    private int detach(
+            final String fileName,
+            final Flight flight
+    ) {
+        finds.remove(fileName, flight);
+        return flight.waiters.get();
+    }
+
+    /**
+     * Waits for result of another call and rethrows its original exception.
+     *
+     * @param running future of result
+     * @param <T>     type of result
+     * @return result
+     */
+    @SneakyThrows
+    private static <T> T await(
+            final CompletableFuture<T> running
+    ) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Fetch of file in flight.
+     */
+    private static final class Flight {
+
+        /**
+         * Number of calls, which wait for fetch. It is changed only while
+         * fetch is in map of fetches in flight.
+         */
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        /**
+         * Result of fetch.
+         */
+        private final CompletableFuture<Fetched> result =
+                new CompletableFuture<>();
+
+    }
+
+    /**
+     * Found file with shared content.
+     */
+    private static final class Fetched {
+
+        /**
+         * Content type.
+         */
+        private final String contentType;
+
+        /**
+         * Version of file.
+         */
+        private final String etag;
+
+        /**
+         * Time of last modification.
+         */
+        private final Instant lastModified;
+
+        /**
+         * Encoding of content.
+         */
+        private final String contentEncoding;
+
+        /**
+         * Content of file, null if file is larger than limit and is not
+         * shared.
+         */
+        private final byte[] content;
+
+        private Fetched(
+                final StorageFile file,
+                final byte[] content
+        ) {
+            this.contentType = file.getContentType();
+            this.etag = file.getEtag();
+            this.lastModified = file.getLastModified();
+            this.contentEncoding = file.getContentEncoding();
+            this.content = content;
+        }
+
+        /**
+         * Creates file with own stream over shared content.
+         *
+         * @param fileName name of file
+         * @return file
+         */
+        private StorageFile file(
+                final String fileName
+        ) {
+            StorageFile file = new StorageFile(
+                    fileName,
+                    contentType,
+                    new ByteArrayInputStream(content)
+            );
+            file.setSize(content.length);
+            file.setEtag(etag);
+            file.setLastModified(lastModified);
+            file.setContentEncoding(contentEncoding);
+            return file;
+        }
+
+    }
+
+}
@@ -0,0 +1,415 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.ConditionalResult;
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.FilePage;
+import io.github.ilyalisov.storage.config.Page;
+import io.github.ilyalisov.storage.config.StorageFile;
+import lombok.SneakyThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * StorageService decorator, which compresses content of text files on save
+ * and decompresses it on find. Files are compressed by their content type:
+ * text, JSON, XML and similar formats are compressed with deflate, other
+ * types, like images, videos and archives, are already compressed and are
+ * saved as is. Encoding is recorded in custom metadata of file, so files
+ * saved without decorator are read as is. Content is compressed and
+ * decompressed while it is streamed, it is never read into memory.
+ * <p>
+ * Files saved with decorator must be read with decorator, other clients
+ * receive compressed content.
+ */
+public class CompressingStorageService extends DelegatingStorageService {
+
+    /**
+     * Encoding of content compressed with deflate in zlib format.
+     */
+    private static final String DEFLATE = "deflate";
+
+    /**
+     * Encoding of content compressed with gzip.
+     */
+    private static final String GZIP = "gzip";
+
+    /**
+     * Minimum size of compressed file in bytes. Smaller files gain too
+     * little to pay for compression.
+     */
+    private static final long MIN_SIZE = 1024;
+
+    /**
+     * Compressible content types, which are not text types.
+     */
+    private static final Set<String> COMPRESSIBLE_TYPES = Set.of(
+            "application/json",
+            "application/x-ndjson",
+            "application/xml",
+            "application/javascript",
+            "application/x-yaml",
+            "application/yaml",
+            "application/sql",
+            "application/x-sh",
+            "image/svg+xml"
+    );
+
+    /**
+     * Level of compression.
+     */
+    private final int level;
+
+    /**
+     * Creates an object with default level of compression.
+     *
+     * @param delegate decorated service
+     */
+    public CompressingStorageService(
+            final StorageService delegate
+    ) {
+        this(delegate, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param delegate decorated service
+     * @param level    level of compression from 1 to 9, or -1 for default
+     */
+    public CompressingStorageService(
+            final StorageService delegate,
+            final int level
+    ) {
+        super(delegate);
+        if (level != Deflater.DEFAULT_COMPRESSION
+                && (level < Deflater.BEST_SPEED
+                || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException(
+                    "Compression level must be between 1 and 9."
+            );
+        }
+        this.level = level;
+    }
+
+    /**
+     * Checks if files of content type are compressed.
+     *
+     * @param contentType content type
+     * @return true - if files are compressed, false - otherwise
+     */
+    public static boolean isCompressible(
+            final String contentType
+    ) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.split(";", 2)[0]
+                .trim()
+                .toLowerCase(Locale.ROOT);
+        return type.startsWith("text/")
+                || type.endsWith("+json")
+                || type.endsWith("+xml")
+                || COMPRESSIBLE_TYPES.contains(type);
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName
+    ) {
+        return getDelegate().find(fileName).map(this::decode);
+    }
+
+    /**
+     * Finds range of bytes of file. File is found whole, as its encoding is
+     * known only when it is found. Compressed file is decompressed from the
+     * start and bytes before range are skipped. Range of file saved as is,
+     * which starts at the first byte, is read from found content, other
+     * ranges are requested from storage before content is read.
+     *
+     * @param fileName name of file
+     * @param offset   offset of first byte of range
+     * @param length   number of bytes in range
+     * @return optional of file with content of range
+     */
+    @Override
+    @SneakyThrows
+    public Optional<StorageFile> find(
+            final String fileName,
+            final long offset,
+            final long length
+    ) {
+        Ranges.check(offset, length);
+        Optional<StorageFile> found = getDelegate().find(fileName);
+        if (found.isEmpty()) {
+            return found;
+        }
+        StorageFile file = found.get();
+        if (!isSupported(file.getContentEncoding())) {
+            if (offset > 0) {
+                file.close();
+                return getDelegate().find(fileName, offset, length);
+            }
+            if (file.getSize() >= 0) {
+                file.setSize(Ranges.length(file.getSize(), 0, length));
+            }
+            file.setInputStream(new LimitedInputStream(
+                    file.getInputStream(),
+                    length
+            ));
+            return found;
+        }
+        decode(file);
+        InputStream content = file.getInputStream();
+        long skipped = 0;
+        while (skipped < offset) {
+            long n = content.skip(offset - skipped);
+            if (n <= 0) {
+                if (content.read() < 0) {
+                    break;
+                }
+                n = 1;
+            }
+            skipped += n;
+        }
+        file.setInputStream(new LimitedInputStream(content, length));
+        return found;
+    }
+
+    @Override
+    public ConditionalResult findIfChanged(
+            final String fileName,
+            final String etag
+    ) {
+        ConditionalResult result = getDelegate().findIfChanged(
+                fileName,
+                etag
+        );
+        if (result.getFile() == null) {
+            return result;
+        }
+        return ConditionalResult.found(decode(result.getFile()));
+    }
+
+    @Override
+    @SneakyThrows
+    public OptionalLong findTo(
+            final String fileName,
+            final WritableByteChannel target
+    ) {
+        Optional<StorageFile> file = find(fileName);
+        if (file.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        try (StorageFile found = file.get();
+             InputStream content = found.getInputStream()) {
+            return OptionalLong.of(Transfers.copy(content, target));
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public OptionalLong findTo(
+            final String fileName,
+            final OutputStream target
+    ) {
+        Optional<StorageFile> file = find(fileName);
+        if (file.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        try (StorageFile found = file.get();
+             InputStream content = found.getInputStream()) {
+            return OptionalLong.of(Transfers.copy(content, target));
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public OptionalLong findTo(
+            final String fileName,
+            final Path target
+    ) {
+        Optional<StorageFile> file = find(fileName);
+        if (file.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        try (StorageFile found = file.get();
+             InputStream content = found.getInputStream();
+             FileChannel channel = FileChannel.open(
+                     target,
+                     StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING
+             )) {
+            return OptionalLong.of(Transfers.copy(content, channel));
+        }
+    }
+
+    @Override
+    public List<StorageFile> findAll(
+            final Path path,
+            final Page page
+    ) {
+        return getDelegate().findAll(path, page).stream()
+                .map(this::decodeListed)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public FilePage findAll(
+            final Path path,
+            final CursorPage page
+    ) {
+        FilePage files = getDelegate().findAll(path, page);
+        return new FilePage(
+                files.getFiles().stream()
+                        .map(this::decodeListed)
+                        .collect(Collectors.toList()),
+                files.getNext()
+        );
+    }
+
+    /**
+     * Saves file. Content of compressible file is compressed while it is
+     * uploaded, so size of saved file is not known in advance. If size of
+     * file is not known, first bytes are read to check if file is large
+     * enough.
+     *
+     * @param file file to be saved
+     * @return relative path to file
+     */
+    @Override
+    @SneakyThrows
+    public Path save(
+            final StorageFile file
+    ) {
+        if (file.getContentEncoding() != null
+                || !isCompressible(file.getContentType())
+                || (file.getSize() >= 0 && file.getSize() < MIN_SIZE)) {
+            return getDelegate().save(file);
+        }
+        if (file.getSize() < 0) {
+            byte[] head = file.getInputStream().readNBytes((int) MIN_SIZE);
+            if (head.length < MIN_SIZE) {
+                file.setInputStream(new ByteArrayInputStream(head));
+                file.setSize(head.length);
+                return getDelegate().save(file);
+            }
+            file.setInputStream(new SequenceInputStream(
+                    new ByteArrayInputStream(head),
+                    file.getInputStream()
+            ));
+        }
+        Deflater deflater = new Deflater(level);
+        try (InputStream content = new DeflaterInputStream(
+                file.getInputStream(),
+                deflater
+        )) {
+            StorageFile compressed = new StorageFile(
+                    file.getFileName(),
+                    file.getPath(),
+                    file.getContentType(),
+                    content
+            );
+            compressed.setContentEncoding(DEFLATE);
+            return getDelegate().save(compressed);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Replaces content of found file with decompressed one. Files with
+     * unknown encoding are returned as is.
+     *
+     * @param file found file
+     * @return file with decompressed content
+     */
+    private StorageFile decode(
+            final StorageFile file
+    ) {
+        if (!isSupported(file.getContentEncoding())) {
+            return file;
+        }
+        file.setInputStream(decoder(
+                file.getContentEncoding(),
+                file.getInputStream()
+        ));
+        file.setContentEncoding(null);
+        file.setSize(-1);
+        return file;
+    }
+
+    /**
+     * Creates listed file, which content is decompressed only when it is
+     * read.
+     *
+     * @param file listed file
+     * @return file with decompressed content
+     */
+    private StorageFile decodeListed(
+            final StorageFile file
+    ) {
+        String encoding = file.getContentEncoding();
+        if (!isSupported(encoding)) {
+            return file;
+        }
+        StorageFile decoded = new StorageFile(
+                file.getFileName(),
+                file.getPath(),
+                file.getContentType(),
+                -1,
+                () -> decoder(encoding, file.getInputStream())
+        );
+        decoded.setEtag(file.getEtag());
+        decoded.setLastModified(file.getLastModified());
+        return decoded;
+    }
+
+    /**
+     * Checks if content with encoding can be decompressed.
+     *
+     * @param encoding encoding of content
+     * @return true - if content can be decompressed, false - otherwise
+     */
+    private static boolean isSupported(
+            final String encoding
+    ) {
+        return DEFLATE.equals(encoding) || GZIP.equals(encoding);
+    }
+
+    /**
+     * Creates stream, which decompresses content.
+     *
+     * @param encoding encoding of content
+     * @param content  compressed content
+     * @return decompressed content
+     */
+    @SneakyThrows
+    private static InputStream decoder(
+            final String encoding,
+            final InputStream content
+    ) {
+        if (GZIP.equals(encoding)) {
+            return new GZIPInputStream(content);
+        }
+        return new InflaterInputStream(content);
+    }
+
+}
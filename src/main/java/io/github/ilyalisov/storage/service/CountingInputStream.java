@@ -0,0 +1,59 @@
+package io.github.ilyalisov.storage.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * InputStream, which reports number of bytes read from underlying stream.
+ */
+class CountingInputStream extends FilterInputStream {
+
+    /**
+     * Receiver of number of read bytes.
+     */
+    private final LongConsumer counter;
+
+    /**
+     * Creates an object.
+     *
+     * @param stream  underlying stream
+     * @param counter receiver of number of read bytes
+     */
+    CountingInputStream(
+            final InputStream stream,
+            final LongConsumer counter
+    ) {
+        super(stream);
+        this.counter = counter;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int result = super.read();
+        if (result >= 0) {
+            counter.accept(1);
+        }
+        return result;
+    }
+
+    @Override
+    public int read(
+            final byte[] bytes,
+            final int offset,
+            final int length
+    ) throws IOException {
+        int result = super.read(bytes, offset, length);
+        if (result > 0) {
+            counter.accept(result);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+}
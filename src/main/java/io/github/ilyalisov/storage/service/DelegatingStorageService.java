@@ -0,0 +1,210 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.ConditionalResult;
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.FilePage;
+import io.github.ilyalisov.storage.config.Page;
+import io.github.ilyalisov.storage.config.StorageFile;
+import io.github.ilyalisov.storage.config.StorageOptions;
+
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * Base class of StorageService decorators, which passes all calls to
+ * delegate. Methods with path are resolved to methods with file name, so
+ * decorator needs to override only the latter.
+ */
+public abstract class DelegatingStorageService implements StorageService {
+
+    /**
+     * Decorated service.
+     */
+    private final StorageService delegate;
+
+    /**
+     * Creates an object.
+     *
+     * @param delegate decorated service
+     */
+    protected DelegatingStorageService(
+            final StorageService delegate
+    ) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns decorated service.
+     *
+     * @return decorated service
+     */
+    public StorageService getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns options of decorated service, so bulk operations of
+     * decorator run with its limits.
+     *
+     * @return options of decorated service
+     */
+    @Override
+    public StorageOptions getOptions() {
+        return delegate.getOptions();
+    }
+
+    @Override
+    public long getUploadBufferSize() {
+        return delegate.getUploadBufferSize();
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName
+    ) {
+        return delegate.find(fileName);
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final Path path
+    ) {
+        return find(fileName(path, fileName));
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final long offset,
+            final long length
+    ) {
+        return delegate.find(fileName, offset, length);
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final Path path,
+            final long offset,
+            final long length
+    ) {
+        return find(fileName(path, fileName), offset, length);
+    }
+
+    @Override
+    public ConditionalResult findIfChanged(
+            final String fileName,
+            final String etag
+    ) {
+        return delegate.findIfChanged(fileName, etag);
+    }
+
+    @Override
+    public ConditionalResult findIfChanged(
+            final String fileName,
+            final Path path,
+            final String etag
+    ) {
+        return findIfChanged(fileName(path, fileName), etag);
+    }
+
+    @Override
+    public OptionalLong findTo(
+            final String fileName,
+            final WritableByteChannel target
+    ) {
+        return delegate.findTo(fileName, target);
+    }
+
+    @Override
+    public OptionalLong findTo(
+            final String fileName,
+            final OutputStream target
+    ) {
+        return delegate.findTo(fileName, target);
+    }
+
+    @Override
+    public OptionalLong findTo(
+            final String fileName,
+            final Path target
+    ) {
+        return delegate.findTo(fileName, target);
+    }
+
+    @Override
+    public List<StorageFile> findAll(
+            final Path path,
+            final Page page
+    ) {
+        return delegate.findAll(path, page);
+    }
+
+    @Override
+    public FilePage findAll(
+            final Path path,
+            final CursorPage page
+    ) {
+        return delegate.findAll(path, page);
+    }
+
+    @Override
+    public boolean exists(
+            final String fileName
+    ) {
+        return delegate.exists(fileName);
+    }
+
+    @Override
+    public boolean exists(
+            final String fileName,
+            final Path path
+    ) {
+        return exists(fileName(path, fileName));
+    }
+
+    @Override
+    public Set<String> existsAll(
+            final Collection<String> fileNames
+    ) {
+        return delegate.existsAll(fileNames);
+    }
+
+    @Override
+    public Path save(
+            final StorageFile file
+    ) {
+        return delegate.save(file);
+    }
+
+    @Override
+    public void delete(
+            final String fileName
+    ) {
+        delegate.delete(fileName);
+    }
+
+    @Override
+    public void delete(
+            final String fileName,
+            final Path path
+    ) {
+        delete(fileName(path, fileName));
+    }
+
+    @Override
+    public DeleteResult delete(
+            final Path path
+    ) {
+        return delegate.delete(path);
+    }
+
+}
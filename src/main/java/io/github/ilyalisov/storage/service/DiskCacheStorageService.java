@@ -0,0 +1,635 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.StorageFile;
+import lombok.SneakyThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StorageService decorator, which keeps content of found files in bounded
+ * cache on local disk. Least recently used files are evicted when total size
+ * of cached files exceeds limit. Cache is invalidated by saving and deleting
+ * files through decorator, changes made directly in storage are not visible
+ * until file is evicted.
+ */
+public class DiskCacheStorageService extends DelegatingStorageService {
+
+    /**
+     * Suffix of cached files.
+     */
+    private static final String SUFFIX = ".cache";
+
+    /**
+     * Directory with cached files.
+     */
+    private final Path directory;
+
+    /**
+     * Maximum total size of cached files in bytes.
+     */
+    private final long maxBytes;
+
+    /**
+     * Cached files by name in access order.
+     */
+    private final LinkedHashMap<String, CacheEntry> entries =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Total size of cached files in bytes.
+     */
+    private long bytes;
+
+    /**
+     * Invalidations of files being fetched, files invalidated while they
+     * are fetched are not cached.
+     */
+    private final Invalidations invalidations = new Invalidations();
+
+    /**
+     * Number of cache hits.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of cache misses.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Number of evicted files.
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an object. Files left in directory by previous instances are
+     * removed.
+     *
+     * @param delegate  decorated service
+     * @param directory directory to keep cached files in
+     * @param maxBytes  maximum total size of cached files in bytes
+     */
+    @SneakyThrows
+    public DiskCacheStorageService(
+            final StorageService delegate,
+            final Path directory,
+            final long maxBytes
+    ) {
+        super(delegate);
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException(
+                    "Cache size must be positive number."
+            );
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+                directory,
+                "*" + SUFFIX
+        )) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Returns number of cache hits.
+     *
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns number of cache misses.
+     *
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns number of evicted files.
+     *
+     * @return number of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns total size of cached files.
+     *
+     * @return size in bytes
+     */
+    public synchronized long getCachedBytes() {
+        return bytes;
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName
+    ) {
+        Optional<StorageFile> cached = cached(fileName, 0, Long.MAX_VALUE);
+        if (cached.isPresent()) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long start = begin(fileName);
+        try {
+            Optional<StorageFile> found = getDelegate().find(fileName);
+            if (found.isEmpty() || found.get().getSize() > maxBytes) {
+                return found;
+            }
+            return Optional.of(load(fileName, found.get(), start));
+        } finally {
+            end(fileName);
+        }
+    }
+
+    /**
+     * Finds range of bytes of file. Cached files are read from local copy,
+     * other ranges are passed to decorated service and are not cached.
+     *
+     * @param fileName name of file
+     * @param offset   offset of first byte of range
+     * @param length   number of bytes in range
+     * @return optional of file with content of range
+     */
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final long offset,
+            final long length
+    ) {
+        Ranges.check(offset, length);
+        Optional<StorageFile> cached = cached(fileName, offset, length);
+        if (cached.isPresent()) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        return getDelegate().find(fileName, offset, length);
+    }
+
+    @Override
+    @SneakyThrows
+    public OptionalLong findTo(
+            final String fileName,
+            final WritableByteChannel target
+    ) {
+        try (FileChannel cached = openCached(fileName)) {
+            if (cached != null) {
+                return OptionalLong.of(transfer(cached, target));
+            }
+        }
+        Optional<StorageFile> file = find(fileName);
+        if (file.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        try (StorageFile found = file.get();
+             InputStream content = found.getInputStream()) {
+            return OptionalLong.of(Transfers.copy(content, target));
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public OptionalLong findTo(
+            final String fileName,
+            final OutputStream target
+    ) {
+        Optional<StorageFile> file = find(fileName);
+        if (file.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        try (StorageFile found = file.get();
+             InputStream content = found.getInputStream()) {
+            return OptionalLong.of(Transfers.copy(content, target));
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public OptionalLong findTo(
+            final String fileName,
+            final Path target
+    ) {
+        try (FileChannel cached = openCached(fileName)) {
+            if (cached != null) {
+                try (FileChannel out = FileChannel.open(
+                        target,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING
+                )) {
+                    return OptionalLong.of(transfer(cached, out));
+                }
+            }
+        }
+        Optional<StorageFile> file = find(fileName);
+        if (file.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        try (StorageFile found = file.get();
+             InputStream content = found.getInputStream();
+             FileChannel out = FileChannel.open(
+                     target,
+                     StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING
+             )) {
+            return OptionalLong.of(Transfers.copy(content, out));
+        }
+    }
+
+    @Override
+    public boolean exists(
+            final String fileName
+    ) {
+        synchronized (this) {
+            if (entries.containsKey(fileName)) {
+                return true;
+            }
+        }
+        return getDelegate().exists(fileName);
+    }
+
+    @Override
+    public Path save(
+            final StorageFile file
+    ) {
+        String fileName = fileName(file.getPath(), file.getFileName());
+        invalidate(fileName);
+        try {
+            return getDelegate().save(file);
+        } finally {
+            invalidate(fileName);
+        }
+    }
+
+    @Override
+    public void delete(
+            final String fileName
+    ) {
+        invalidate(fileName);
+        try {
+            getDelegate().delete(fileName);
+        } finally {
+            invalidate(fileName);
+        }
+    }
+
+    @Override
+    public DeleteResult delete(
+            final Path path
+    ) {
+        invalidateFolder(path);
+        try {
+            return getDelegate().delete(path);
+        } finally {
+            invalidateFolder(path);
+        }
+    }
+
+    /**
+     * Opens range of cached file.
+     *
+     * @param fileName name of file
+     * @param offset   offset of first byte of range
+     * @param length   number of bytes in range
+     * @return optional of file, empty if file is not cached
+     */
+    private Optional<StorageFile> cached(
+            final String fileName,
+            final long offset,
+            final long length
+    ) {
+        CacheEntry entry;
+        synchronized (this) {
+            entry = entries.get(fileName);
+        }
+        if (entry == null) {
+            return Optional.empty();
+        }
+        try {
+            FileChannel channel = FileChannel.open(
+                    entry.file(),
+                    StandardOpenOption.READ
+            );
+            channel.position(offset);
+            return Optional.of(file(
+                    fileName,
+                    entry,
+                    channel,
+                    Ranges.length(entry.size(), offset, length)
+            ));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Opens channel of cached file and counts hit.
+     *
+     * @param fileName name of file
+     * @return channel, null if file is not cached
+     */
+    private FileChannel openCached(
+            final String fileName
+    ) {
+        CacheEntry entry;
+        synchronized (this) {
+            entry = entries.get(fileName);
+        }
+        if (entry == null) {
+            return null;
+        }
+        try {
+            FileChannel channel = FileChannel.open(
+                    entry.file(),
+                    StandardOpenOption.READ
+            );
+            hits.increment();
+            return channel;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Transfers whole content of cached file to channel.
+     *
+     * @param channel channel of cached file
+     * @param target  target channel
+     * @return number of transferred bytes
+     * @throws IOException if content can not be transferred
+     */
+    private long transfer(
+            final FileChannel channel,
+            final WritableByteChannel target
+    ) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        while (position < size) {
+            position += channel.transferTo(
+                    position,
+                    size - position,
+                    target
+            );
+        }
+        return position;
+    }
+
+    /**
+     * Writes content of found file to cache and opens cached copy. If file
+     * was invalidated while it was fetched, copy is served once and
+     * removed. Content of unknown size is copied only until it exceeds the
+     * limit, then partial copy is removed and file is served from copied
+     * bytes and rest of its content.
+     *
+     * @param fileName name of file
+     * @param found    file found in decorated service
+     * @param start    time of start of fetch
+     * @return cached file
+     */
+    @SneakyThrows
+    private StorageFile load(
+            final String fileName,
+            final StorageFile found,
+            final long start
+    ) {
+        Path target = directory.resolve(UUID.randomUUID() + SUFFIX);
+        InputStream stream = found.getInputStream();
+        long size = 0;
+        try {
+            ReadableByteChannel in = Channels.newChannel(stream);
+            try (FileChannel out = FileChannel.open(
+                    target,
+                    StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE
+            )) {
+                long transferred;
+                do {
+                    transferred = out.transferFrom(
+                            in,
+                            size,
+                            maxBytes + 1 - size
+                    );
+                    size += transferred;
+                } while (transferred > 0 && size <= maxBytes);
+            }
+            if (size > maxBytes) {
+                FileChannel copied = FileChannel.open(
+                        target,
+                        StandardOpenOption.READ
+                );
+                Files.deleteIfExists(target);
+                found.setInputStream(new SequenceInputStream(
+                        Channels.newInputStream(copied),
+                        stream
+                ));
+                return found;
+            }
+            found.close();
+        } catch (Exception e) {
+            Files.deleteIfExists(target);
+            found.close();
+            throw e;
+        }
+        CacheEntry entry = new CacheEntry(
+                target,
+                size,
+                found.getContentType(),
+                found.getEtag(),
+                found.getLastModified(),
+                found.getContentEncoding()
+        );
+        FileChannel channel = FileChannel.open(
+                target,
+                StandardOpenOption.READ
+        );
+        if (!put(fileName, entry, start)) {
+            Files.deleteIfExists(target);
+        }
+        return file(fileName, entry, channel, size);
+    }
+
+    /**
+     * Adds file to cache and evicts least recently used files.
+     *
+     * @param fileName name of file
+     * @param entry    cached file
+     * @param start    time of start of fetch
+     * @return true - if file was added, false - if file was invalidated
+     * since it was fetched
+     */
+    private boolean put(
+            final String fileName,
+            final CacheEntry entry,
+            final long start
+    ) {
+        List<CacheEntry> removed = new ArrayList<>();
+        synchronized (this) {
+            if (!invalidations.isCurrent(fileName, start)) {
+                return false;
+            }
+            CacheEntry previous = entries.put(fileName, entry);
+            if (previous != null) {
+                bytes -= previous.size();
+                removed.add(previous);
+            }
+            bytes += entry.size();
+            Iterator<Map.Entry<String, CacheEntry>> iterator =
+                    entries.entrySet().iterator();
+            while (bytes > maxBytes && iterator.hasNext()) {
+                CacheEntry evicted = iterator.next().getValue();
+                iterator.remove();
+                bytes -= evicted.size();
+                removed.add(evicted);
+                evictions.increment();
+            }
+        }
+        removed.forEach(this::deleteFile);
+        return true;
+    }
+
+    /**
+     * Removes file from cache.
+     *
+     * @param fileName name of file
+     */
+    private void invalidate(
+            final String fileName
+    ) {
+        CacheEntry removed;
+        synchronized (this) {
+            invalidations.invalidate(fileName);
+            removed = entries.remove(fileName);
+            if (removed != null) {
+                bytes -= removed.size();
+            }
+        }
+        if (removed != null) {
+            deleteFile(removed);
+        }
+    }
+
+    /**
+     * Removes all files in folder from cache.
+     *
+     * @param path path to folder
+     */
+    private void invalidateFolder(
+            final Path path
+    ) {
+        String prefix = path + "/";
+        List<CacheEntry> removed = new ArrayList<>();
+        synchronized (this) {
+            invalidations.invalidateFolder(prefix);
+            Iterator<Map.Entry<String, CacheEntry>> iterator =
+                    entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, CacheEntry> entry = iterator.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    iterator.remove();
+                    bytes -= entry.getValue().size();
+                    removed.add(entry.getValue());
+                }
+            }
+        }
+        removed.forEach(this::deleteFile);
+    }
+
+    private synchronized long begin(
+            final String fileName
+    ) {
+        return invalidations.begin(fileName);
+    }
+
+    private synchronized void end(
+            final String fileName
+    ) {
+        invalidations.end(fileName);
+    }
+
+    private void deleteFile(
+            final CacheEntry entry
+    ) {
+        try {
+            Files.deleteIfExists(entry.file());
+        } catch (IOException ignored) {
+            // file is removed with directory cleanup on next start
+        }
+    }
+
+    private StorageFile file(
+            final String fileName,
+            final CacheEntry entry,
+            final FileChannel channel,
+            final long size
+    ) {
+        InputStream content = Channels.newInputStream(channel);
+        if (size < entry.size()) {
+            content = new LimitedInputStream(content, size);
+        }
+        StorageFile file = new StorageFile(
+                fileName,
+                entry.contentType(),
+                content
+        );
+        file.setSize(size);
+        file.setEtag(entry.etag());
+        file.setLastModified(entry.lastModified());
+        file.setContentEncoding(entry.contentEncoding());
+        return file;
+    }
+
+    /**
+     * Cached file.
+     *
+     * @param file            path to local copy
+     * @param size            size in bytes
+     * @param contentType     content type
+     * @param etag            version of file, null if unknown
+     * @param lastModified    time of last modification, null if unknown
+     * @param contentEncoding encoding of content, null if there is none
+     */
+    private record CacheEntry(
+            Path file,
+            long size,
+            String contentType,
+            String etag,
+            Instant lastModified,
+            String contentEncoding
+    ) {
+    }
+
+}
@@ -0,0 +1,231 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.FilePage;
+import io.github.ilyalisov.storage.config.StorageFile;
+import lombok.SneakyThrows;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StorageService decorator, which answers exists calls locally when it can.
+ * Files in indexed folder are listed once and put into Bloom filter, so
+ * checks of files, which are not in filter, return false without request to
+ * storage. Positive answers of storage are cached for a short time.
+ * Index is kept current by saving and deleting files through decorator,
+ * files saved directly in storage after index was built are not visible
+ * to negative checks.
+ */
+public class ExistenceCacheStorageService extends DelegatingStorageService {
+
+    /**
+     * Size of page used to list indexed folder.
+     */
+    private static final int LISTING_PAGE_SIZE = 1000;
+
+    /**
+     * Prefix of names of indexed files.
+     */
+    private final String prefix;
+
+    /**
+     * Filter of names of files in indexed folder.
+     */
+    private final BloomFilter filter;
+
+    /**
+     * Time to live of positive answers in nanoseconds.
+     */
+    private final long ttl;
+
+    /**
+     * Expiration time of positive answers by file name.
+     */
+    private final Map<String, Long> positives = new ConcurrentHashMap<>();
+
+    /**
+     * Number of checks answered locally.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of checks passed to storage.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates an object and lists indexed folder.
+     *
+     * @param delegate          decorated service
+     * @param path              path to indexed folder
+     * @param expectedFiles     expected number of files in indexed folder
+     * @param falsePositiveRate probability of passing check of missing
+     *                          file to storage
+     * @param ttl               time to live of positive answers
+     */
+    @SneakyThrows
+    public ExistenceCacheStorageService(
+            final StorageService delegate,
+            final Path path,
+            final long expectedFiles,
+            final double falsePositiveRate,
+            final Duration ttl
+    ) {
+        super(delegate);
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException(
+                    "Time to live must not be negative."
+            );
+        }
+        this.prefix = path + "/";
+        this.filter = new BloomFilter(expectedFiles, falsePositiveRate);
+        this.ttl = ttl.toNanos();
+        CursorPage page = new CursorPage(LISTING_PAGE_SIZE);
+        while (page != null) {
+            FilePage files = delegate.findAll(path, page);
+            for (StorageFile file : files.getFiles()) {
+                try (file) {
+                    filter.add(fileName(file.getPath(), file.getFileName()));
+                }
+            }
+            page = files.getNext();
+        }
+    }
+
+    /**
+     * Returns number of checks answered without request to storage.
+     *
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns number of checks passed to storage.
+     *
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public boolean exists(
+            final String fileName
+    ) {
+        Boolean cached = cached(fileName);
+        if (cached != null) {
+            return cached;
+        }
+        boolean exists = getDelegate().exists(fileName);
+        if (exists) {
+            positives.put(fileName, System.nanoTime() + ttl);
+        }
+        return exists;
+    }
+
+    @Override
+    public Set<String> existsAll(
+            final Collection<String> fileNames
+    ) {
+        Set<String> found = new HashSet<>();
+        List<String> unknown = new ArrayList<>();
+        for (String fileName : fileNames) {
+            Boolean cached = cached(fileName);
+            if (cached == null) {
+                unknown.add(fileName);
+            } else if (cached) {
+                found.add(fileName);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            long expiration = System.nanoTime() + ttl;
+            for (String fileName : getDelegate().existsAll(unknown)) {
+                positives.put(fileName, expiration);
+                found.add(fileName);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Path save(
+            final StorageFile file
+    ) {
+        String fileName = fileName(file.getPath(), file.getFileName());
+        if (indexed(fileName)) {
+            filter.add(fileName);
+        }
+        Path saved = getDelegate().save(file);
+        positives.put(fileName, System.nanoTime() + ttl);
+        return saved;
+    }
+
+    @Override
+    public void delete(
+            final String fileName
+    ) {
+        positives.remove(fileName);
+        try {
+            getDelegate().delete(fileName);
+        } finally {
+            positives.remove(fileName);
+        }
+    }
+
+    @Override
+    public DeleteResult delete(
+            final Path path
+    ) {
+        String folder = path + "/";
+        positives.keySet().removeIf(key -> key.startsWith(folder));
+        try {
+            return getDelegate().delete(path);
+        } finally {
+            positives.keySet().removeIf(key -> key.startsWith(folder));
+        }
+    }
+
+    /**
+     * Answers check of file from positive answers and Bloom filter.
+     *
+     * @param fileName name of file
+     * @return whether file exists, null if delegate must be asked
+     */
+    private Boolean cached(
+            final String fileName
+    ) {
+        Long expiration = positives.get(fileName);
+        if (expiration != null) {
+            if (expiration - System.nanoTime() > 0) {
+                hits.increment();
+                return true;
+            }
+            positives.remove(fileName, expiration);
+        }
+        if (indexed(fileName) && !filter.mightContain(fileName)) {
+            hits.increment();
+            return false;
+        }
+        misses.increment();
+        return null;
+    }
+
+    private boolean indexed(
+            final String fileName
+    ) {
+        return fileName.startsWith(prefix);
+    }
+
+}
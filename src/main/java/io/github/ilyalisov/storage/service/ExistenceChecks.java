@@ -0,0 +1,148 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.StorageOptions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Utility methods of checking existence of many files at once.
+ */
+final class ExistenceChecks {
+
+    /**
+     * Minimum number of names in one folder, which are checked with listing
+     * of folder instead of separate requests.
+     */
+    static final int MIN_LISTED_NAMES = 16;
+
+    /**
+     * Number of pages of listing, which are read in addition to pages
+     * needed for checked names, before remaining names are checked with
+     * separate requests.
+     */
+    static final int EXTRA_LISTED_PAGES = 2;
+
+    private ExistenceChecks() {
+    }
+
+    /**
+     * Groups names of files by folder. Names of group are sorted, so
+     * listing of folder can start right before first of them and stop
+     * after last one.
+     *
+     * @param fileNames names of files
+     * @return sorted names by prefix of folder, prefix of files in root
+     * folder is empty
+     */
+    static Map<String, NavigableSet<String>> byFolder(
+            final Collection<String> fileNames
+    ) {
+        Map<String, NavigableSet<String>> groups = new HashMap<>();
+        for (String fileName : fileNames) {
+            String folder = fileName.substring(
+                    0,
+                    fileName.lastIndexOf('/') + 1
+            );
+            groups.computeIfAbsent(folder, key -> new TreeSet<>())
+                    .add(fileName);
+        }
+        return groups;
+    }
+
+    /**
+     * Returns maximum number of pages of listing, which are read to check
+     * names. Names are sparse in large folders, so listing stops after
+     * this number of pages and remaining names are checked with separate
+     * requests.
+     *
+     * @param names    number of checked names
+     * @param pageSize size of page of listing
+     * @return number of pages
+     */
+    static int maxListedPages(
+            final int names,
+            final int pageSize
+    ) {
+        return (names + pageSize - 1) / pageSize + EXTRA_LISTED_PAGES;
+    }
+
+    /**
+     * Returns names, which were not reached by listing.
+     *
+     * @param fileNames  sorted names of files
+     * @param lastListed last listed name, null if nothing was listed
+     * @return names after last listed name
+     */
+    static Set<String> remaining(
+            final NavigableSet<String> fileNames,
+            final String lastListed
+    ) {
+        if (lastListed == null) {
+            return fileNames;
+        }
+        return fileNames.tailSet(lastListed, false);
+    }
+
+    /**
+     * Returns name, which sorts right before given one, so listing, which
+     * starts after it, includes given name.
+     *
+     * @param fileName name of file
+     * @return preceding name, null if name is empty
+     */
+    static String before(
+            final String fileName
+    ) {
+        if (fileName.isEmpty()) {
+            return null;
+        }
+        return fileName.substring(0, fileName.length() - 1);
+    }
+
+    /**
+     * Checks existence of files with separate requests, which run
+     * concurrently with limit from options.
+     *
+     * @param fileNames names of files
+     * @param options   options of service
+     * @param exists    check of one file
+     * @return names of existing files
+     */
+    static Set<String> lookup(
+            final Collection<String> fileNames,
+            final StorageOptions options,
+            final Predicate<String> exists
+    ) {
+        Set<String> found = ConcurrentHashMap.newKeySet();
+        if (fileNames.isEmpty()) {
+            return found;
+        }
+        try (BoundedExecutor executor = new BoundedExecutor(
+                options.getExecutionMode(),
+                options.getConcurrency()
+        )) {
+            List<CompletableFuture<Void>> checks = new ArrayList<>();
+            for (String fileName : fileNames) {
+                checks.add(executor.submit(() -> {
+                    if (exists.test(fileName)) {
+                        found.add(fileName);
+                    }
+                    return null;
+                }));
+            }
+            checks.forEach(CompletableFuture::join);
+        }
+        return found;
+    }
+
+}
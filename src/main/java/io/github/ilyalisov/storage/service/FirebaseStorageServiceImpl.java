@@ -2,32 +2,95 @@ package io.github.ilyalisov.storage.service;
 
 import com.google.api.gax.paging.Page;
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.ReadChannel;
+import com.google.cloud.BatchResult;
 import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Bucket;
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageBatch;
+import com.google.cloud.storage.StorageException;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.cloud.StorageClient;
+import io.github.ilyalisov.storage.config.ConditionalResult;
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.FilePage;
+import io.github.ilyalisov.storage.config.SaveResult;
 import io.github.ilyalisov.storage.config.StorageFile;
+import io.github.ilyalisov.storage.config.StorageOptions;
+import io.github.ilyalisov.storage.metrics.StorageMetrics;
 import lombok.SneakyThrows;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.channels.Channels;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Implementation of StorageService based on Firebase.
  */
-public class FirebaseStorageServiceImpl implements StorageService {
+public class FirebaseStorageServiceImpl implements AsyncStorageService {
+
+    /**
+     * Unit of chunk size of resumable uploads.
+     */
+    private static final int CHUNK_SIZE_UNIT = 256 * 1024;
+
+    /**
+     * Maximum number of blobs deleted with one batch request.
+     */
+    private static final int DELETE_BATCH_SIZE = 100;
+
+    /**
+     * Maximum number of blobs in one page of listing.
+     */
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    /**
+     * Key of custom metadata with encoding of content.
+     */
+    private static final String ENCODING_METADATA = "content-encoding";
 
     /**
      * Firebase Bucket.
      */
     private final Bucket bucket;
 
+    /**
+     * Options of service.
+     */
+    private final StorageOptions options;
+
+    /**
+     * Executor of asynchronous methods, as Firebase client is blocking.
+     */
+    private final Executor executor;
+
+    /**
+     * Metrics of operations and requests.
+     */
+    private final StorageMetrics metrics;
+
     /**
      * Returns bucket.
      *
@@ -43,37 +106,110 @@ public class FirebaseStorageServiceImpl implements StorageService {
      * @param credentials input stream with Firebase credentials from JSON file
      * @param bucket      Firebase bucket name
      */
-    @SneakyThrows
     public FirebaseStorageServiceImpl(
             final InputStream credentials,
             final String bucket
     ) {
-        FirebaseOptions options = FirebaseOptions.builder()
+        this(
+                credentials,
+                bucket,
+                StorageOptions.defaults()
+        );
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param credentials input stream with Firebase credentials from JSON file
+     * @param bucket      Firebase bucket name
+     * @param options     options of service
+     */
+    @SneakyThrows
+    public FirebaseStorageServiceImpl(
+            final InputStream credentials,
+            final String bucket,
+            final StorageOptions options
+    ) {
+        if (options.getChunkSize() <= 0
+                || options.getChunkSize() % CHUNK_SIZE_UNIT != 0) {
+            throw new IllegalArgumentException(
+                    "Chunk size must be a multiple of 256 KiB."
+            );
+        }
+        this.options = options;
+        this.metrics = options.getMetrics();
+        this.executor = Objects.requireNonNullElseGet(
+                options.getExecutor(),
+                () -> StorageExecutors.newExecutor(
+                        options.getExecutionMode()
+                )
+        );
+        FirebaseOptions firebaseOptions = FirebaseOptions.builder()
                 .setCredentials(
                         GoogleCredentials.fromStream(
                                 credentials
                         )
                 )
                 .build();
-        FirebaseApp.initializeApp(options);
+        FirebaseApp.initializeApp(firebaseOptions);
         this.bucket = StorageClient.getInstance()
                 .bucket(bucket);
     }
 
+    @Override
+    public StorageOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Returns size of chunk of resumable upload.
+     *
+     * @return size of buffer in bytes
+     */
+    @Override
+    public long getUploadBufferSize() {
+        return options.getChunkSize();
+    }
+
     @Override
     public Optional<StorageFile> find(
             final String fileName
     ) {
-        Blob result = bucket.get(fileName);
-        if (result == null) {
-            return Optional.empty();
-        }
-        StorageFile file = new StorageFile(
-                fileName,
-                result.getContentType(),
-                new ByteArrayInputStream(result.getContent())
-        );
-        return Optional.of(file);
+        return Metered.call(metrics, "find", () -> {
+            metrics.request("get");
+            Blob result = bucket.get(fileName);
+            if (result == null) {
+                return Optional.empty();
+            }
+            return Optional.of(file(fileName, result));
+        });
+    }
+
+    /**
+     * Finds file, if generation of blob differs from version of cached
+     * copy. Generation is checked with metadata request, content is read
+     * only if blob was changed.
+     *
+     * @param fileName name of file
+     * @param etag     version of cached copy, null if there is no copy
+     * @return result with file, if it was changed
+     */
+    @Override
+    public ConditionalResult findIfChanged(
+            final String fileName,
+            final String etag
+    ) {
+        return Metered.call(metrics, "findIfChanged", () -> {
+            metrics.request("get");
+            Blob result = bucket.get(fileName);
+            if (result == null) {
+                return ConditionalResult.notFound();
+            }
+            if (etag != null && etag.equals(etag(result))) {
+                return ConditionalResult.notModified();
+            }
+            return ConditionalResult.found(file(fileName, result));
+        });
     }
 
     @Override
@@ -84,37 +220,104 @@ public class FirebaseStorageServiceImpl implements StorageService {
         return find(fileName(path, fileName));
     }
 
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final long offset,
+            final long length
+    ) {
+        return Metered.call(metrics, "findRange", () -> {
+            Ranges.check(offset, length);
+            metrics.request("get");
+            Blob result = bucket.get(fileName);
+            if (result == null) {
+                return Optional.empty();
+            }
+            long size = Ranges.length(result.getSize(), offset, length);
+            InputStream content = InputStream.nullInputStream();
+            if (size > 0) {
+                metrics.request("read");
+                ReadChannel reader = result.reader(
+                        Blob.BlobSourceOption.generationMatch()
+                );
+                reader.seek(offset);
+                reader.limit(offset + size);
+                content = content(Channels.newInputStream(reader));
+            }
+            StorageFile file = new StorageFile(
+                    fileName,
+                    result.getContentType(),
+                    content
+            );
+            file.setSize(size);
+            metadata(file, result);
+            return Optional.of(file);
+        });
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final Path path,
+            final long offset,
+            final long length
+    ) {
+        return find(fileName(path, fileName), offset, length);
+    }
+
     @Override
     public List<StorageFile> findAll(
             final Path path,
             final io.github.ilyalisov.storage.config.Page page
     ) {
-        Page<Blob> results = bucket.list(
-                Storage.BlobListOption.prefix(path.toString() + "/")
-        );
-        List<Blob> pageBlobs = results.streamAll()
-                .toList();
-        List<Blob> blobs = pageBlobs
-                .subList(
-                        page.offset(),
-                        Math.min(
-                                page.offset() + page.getPageSize(),
-                                pageBlobs.size()
-                        )
+        return Metered.call(metrics, "findAll", () -> {
+            metrics.request("list");
+            Page<Blob> results = bucket.list(
+                    Storage.BlobListOption.prefix(path.toString() + "/")
+            );
+            return results.streamAll()
+                    .skip(page.offset())
+                    .limit(page.getPageSize())
+                    .map(this::file)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Override
+    public FilePage findAll(
+            final Path path,
+            final CursorPage page
+    ) {
+        return Metered.call(metrics, "findAll", () -> {
+            List<Storage.BlobListOption> options = new ArrayList<>();
+            options.add(Storage.BlobListOption.prefix(path + "/"));
+            options.add(Storage.BlobListOption.pageSize(page.getPageSize()));
+            if (page.getCursor() != null) {
+                options.add(Storage.BlobListOption.pageToken(page.getCursor()));
+            }
+            metrics.request("list");
+            Page<Blob> results = bucket.list(
+                    options.toArray(new Storage.BlobListOption[0])
+            );
+            List<StorageFile> files = new ArrayList<>();
+            results.getValues()
+                    .forEach(blob -> files.add(file(blob)));
+            CursorPage next = null;
+            if (results.hasNextPage()) {
+                next = new CursorPage(
+                        results.getNextPageToken(),
+                        page.getPageSize()
                 );
-        return blobs.stream()
-                .map(
-                        (result) -> find(result.getName())
-                                .orElseThrow()
-                )
-                .collect(Collectors.toList());
+            }
+            return new FilePage(files, next);
+        });
     }
 
     @Override
     public boolean exists(
             final String fileName
     ) {
-        return bucket.get(fileName) != null;
+        return Metered.call(metrics, "exists", () -> get(fileName));
     }
 
     @Override
@@ -126,29 +329,101 @@ public class FirebaseStorageServiceImpl implements StorageService {
     }
 
     @Override
-    @SneakyThrows
+    public Set<String> existsAll(
+            final Collection<String> fileNames
+    ) {
+        return Metered.call(metrics, "existsAll", () -> {
+            Set<String> found = new HashSet<>();
+            List<String> lookups = new ArrayList<>();
+            for (Map.Entry<String, NavigableSet<String>> group
+                    : ExistenceChecks.byFolder(fileNames).entrySet()) {
+                if (group.getValue().size()
+                        < ExistenceChecks.MIN_LISTED_NAMES) {
+                    lookups.addAll(group.getValue());
+                } else {
+                    found.addAll(listed(
+                            group.getKey(),
+                            group.getValue(),
+                            lookups
+                    ));
+                }
+            }
+            found.addAll(ExistenceChecks.lookup(
+                    lookups,
+                    options,
+                    this::get
+            ));
+            return found;
+        });
+    }
+
+    @Override
     public Path save(
             final StorageFile file
     ) {
-        bucket.create(
-                fileName(file.getPath(), file.getFileName()),
-                file.getInputStream().readAllBytes(),
-                file.getContentType()
+        return Metered.call(metrics, "save", () -> {
+            BlobInfo.Builder builder = BlobInfo.newBuilder(
+                            bucket.getName(),
+                            fileName(file.getPath(), file.getFileName())
+                    )
+                    .setContentType(file.getContentType());
+            if (file.getContentEncoding() != null) {
+                builder.setMetadata(Map.of(
+                        ENCODING_METADATA,
+                        file.getContentEncoding()
+                ));
+            }
+            BlobInfo info = builder.build();
+            metrics.request("create");
+            if (file.getSource() != null) {
+                bucket.getStorage().createFrom(
+                        info,
+                        file.getSource(),
+                        options.getChunkSize()
+                );
+                metrics.bytesWritten(file.getSize());
+            } else {
+                bucket.getStorage().createFrom(
+                        info,
+                        new CountingInputStream(
+                                file.getInputStream(),
+                                metrics::bytesWritten
+                        ),
+                        options.getChunkSize()
+                );
+            }
+            return Path.of(fileName(
+                    file.getPath(),
+                    file.getFileName()
+            ));
+        });
+    }
+
+    @Override
+    public void saveAll(
+            final Iterable<StorageFile> files,
+            final Consumer<SaveResult> results
+    ) {
+        Metered.run(
+                metrics,
+                "saveAll",
+                () -> new BulkSave(this, options, results)
+                        .run(files.iterator())
         );
-        return Path.of(fileName(
-                file.getPath(),
-                file.getFileName()
-        ));
     }
 
     @Override
     public void delete(
             final String fileName
     ) {
-        Blob file = bucket.get(fileName);
-        if (file != null) {
-            file.delete();
-        }
+        Metered.run(metrics, "delete", () -> {
+            metrics.request("get");
+            Blob file = bucket.get(fileName);
+            if (file != null) {
+                metrics.request("delete");
+                file.delete();
+            }
+        });
     }
 
     @Override
@@ -160,14 +435,348 @@ public class FirebaseStorageServiceImpl implements StorageService {
     }
 
     @Override
-    public void delete(
+    public DeleteResult delete(
             final Path path
     ) {
-        Page<Blob> blobs = bucket.list(
-                Storage.BlobListOption.prefix(path + "/")
+        return Metered.call(metrics, "deleteFolder", () -> {
+            metrics.request("list");
+            Page<Blob> blobs = bucket.list(
+                    Storage.BlobListOption.prefix(path + "/"),
+                    Storage.BlobListOption.fields(Storage.BlobField.NAME)
+            );
+            AtomicLong deleted = new AtomicLong();
+            Queue<String> failed = new ConcurrentLinkedQueue<>();
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            try (BoundedExecutor executor = new BoundedExecutor(
+                    options.getExecutionMode(),
+                    options.getConcurrency()
+            )) {
+                List<BlobId> batch = new ArrayList<>();
+                Iterator<Blob> items = blobs.iterateAll().iterator();
+                while (items.hasNext()) {
+                    batch.add(items.next().getBlobId());
+                    if (batch.size() == DELETE_BATCH_SIZE || !items.hasNext()) {
+                        List<BlobId> ids = batch;
+                        batches.add(executor.submit(() -> {
+                            delete(ids, deleted, failed);
+                            return null;
+                        }));
+                        batch = new ArrayList<>();
+                    }
+                }
+                batches.forEach(CompletableFuture::join);
+            }
+            return new DeleteResult(deleted.get(), new ArrayList<>(failed));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Optional<StorageFile>> findAsync(
+            final String fileName
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> find(fileName),
+                executor
         );
-        blobs.streamAll()
-                .forEach(Blob::delete);
+    }
+
+    @Override
+    public CompletableFuture<List<StorageFile>> findAllAsync(
+            final Path path,
+            final io.github.ilyalisov.storage.config.Page page
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> findAll(path, page),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<FilePage> findAllAsync(
+            final Path path,
+            final CursorPage page
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> findAll(path, page),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<Boolean> existsAsync(
+            final String fileName
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> exists(fileName),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<Path> saveAsync(
+            final StorageFile file
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> save(file),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(
+            final String fileName
+    ) {
+        return CompletableFuture.runAsync(
+                () -> delete(fileName),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<DeleteResult> deleteAsync(
+            final Path path
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> delete(path),
+                executor
+        );
+    }
+
+    /**
+     * Deletes batch of blobs with one batch request.
+     *
+     * @param ids     ids of blobs
+     * @param deleted counter of deleted blobs
+     * @param failed  names of blobs failed to delete
+     */
+    private void delete(
+            final List<BlobId> ids,
+            final AtomicLong deleted,
+            final Queue<String> failed
+    ) {
+        StorageBatch batch = bucket.getStorage().batch();
+        for (BlobId id : ids) {
+            batch.delete(id).notify(
+                    new BatchResult.Callback<>() {
+                        @Override
+                        public void success(
+                                final Boolean result
+                        ) {
+                            if (result) {
+                                deleted.incrementAndGet();
+                            }
+                        }
+
+                        @Override
+                        public void error(
+                                final StorageException e
+                        ) {
+                            failed.add(id.getName());
+                        }
+                    }
+            );
+        }
+        try {
+            metrics.request("batch");
+            batch.submit();
+        } catch (Exception e) {
+            ids.forEach(id -> failed.add(id.getName()));
+        }
+    }
+
+    /**
+     * Checks if blob exists with request of its metadata.
+     *
+     * @param fileName name of blob
+     * @return true - if blob exists, false - otherwise
+     */
+    private boolean get(
+            final String fileName
+    ) {
+        metrics.request("get");
+        return bucket.get(fileName) != null;
+    }
+
+    /**
+     * Lists folder from first to last of names and returns names, which
+     * are found in listing. Only names of blobs are requested. Listing
+     * stops after limited number of pages, names, which were not reached,
+     * are added to names to check with separate requests.
+     *
+     * @param folder    prefix of folder
+     * @param fileNames sorted names of files in folder
+     * @param lookups   names to check with separate requests
+     * @return names of existing files
+     */
+    private Set<String> listed(
+            final String folder,
+            final NavigableSet<String> fileNames,
+            final Collection<String> lookups
+    ) {
+        Set<String> found = new HashSet<>();
+        String lastListed = null;
+        int pages = ExistenceChecks.maxListedPages(
+                fileNames.size(),
+                LIST_PAGE_SIZE
+        );
+        metrics.request("list");
+        Page<Blob> page = bucket.list(
+                Storage.BlobListOption.prefix(folder),
+                Storage.BlobListOption.currentDirectory(),
+                Storage.BlobListOption.startOffset(fileNames.first()),
+                Storage.BlobListOption.pageSize(LIST_PAGE_SIZE),
+                Storage.BlobListOption.fields(Storage.BlobField.NAME)
+        );
+        for (int i = 1; ; i++) {
+            for (Blob blob : page.getValues()) {
+                if (fileNames.contains(blob.getName())) {
+                    found.add(blob.getName());
+                }
+                if (blob.getName().compareTo(fileNames.last()) >= 0) {
+                    return found;
+                }
+                lastListed = blob.getName();
+            }
+            if (!page.hasNextPage()) {
+                return found;
+            }
+            if (i == pages) {
+                lookups.addAll(ExistenceChecks.remaining(
+                        fileNames,
+                        lastListed
+                ));
+                return found;
+            }
+            metrics.request("list");
+            page = page.getNextPage();
+        }
+    }
+
+    /**
+     * Creates file from listed blob. Content of file is opened only when
+     * it is read.
+     *
+     * @param blob listed blob
+     * @return file
+     */
+    private StorageFile file(
+            final Blob blob
+    ) {
+        StorageFile file = new StorageFile(
+                blob.getName(),
+                null,
+                blob.getContentType(),
+                blob.getSize(),
+                () -> content(blob)
+        );
+        metadata(file, blob);
+        return file;
+    }
+
+    /**
+     * Creates found file from blob.
+     *
+     * @param fileName name of file
+     * @param blob     found blob
+     * @return file
+     */
+    private StorageFile file(
+            final String fileName,
+            final Blob blob
+    ) {
+        StorageFile file = new StorageFile(
+                fileName,
+                blob.getContentType(),
+                content(blob)
+        );
+        file.setSize(blob.getSize());
+        metadata(file, blob);
+        return file;
+    }
+
+    /**
+     * Sets version, time of modification and encoding of file from metadata
+     * of blob.
+     *
+     * @param file file
+     * @param blob blob
+     */
+    private void metadata(
+            final StorageFile file,
+            final Blob blob
+    ) {
+        file.setEtag(etag(blob));
+        if (blob.getMetadata() != null) {
+            file.setContentEncoding(blob.getMetadata().get(ENCODING_METADATA));
+        }
+        if (blob.getUpdateTimeOffsetDateTime() != null) {
+            file.setLastModified(
+                    blob.getUpdateTimeOffsetDateTime().toInstant()
+            );
+        }
+    }
+
+    /**
+     * Returns version of blob. Generation is used instead of ETag, as it
+     * changes only when content of blob is overwritten.
+     *
+     * @param blob blob
+     * @return generation of blob or null if it is unknown
+     */
+    private static String etag(
+            final Blob blob
+    ) {
+        if (blob.getGeneration() == null) {
+            return null;
+        }
+        return String.valueOf(blob.getGeneration());
+    }
+
+    /**
+     * Returns content of blob. By default, content is streamed from blob
+     * reader, if content buffering is enabled, it is read into memory.
+     *
+     * @param blob blob
+     * @return stream with content
+     */
+    private InputStream content(
+            final Blob blob
+    ) {
+        metrics.request("read");
+        if (options.isBufferContent()) {
+            byte[] content = blob.getContent();
+            metrics.bytesRead(content.length);
+            return new ByteArrayInputStream(content);
+        }
+        return new CountingInputStream(
+                Channels.newInputStream(
+                        blob.reader(Blob.BlobSourceOption.generationMatch())
+                ),
+                metrics::bytesRead
+        );
+    }
+
+    /**
+     * Returns content of stream, which is read into memory if content
+     * buffering is enabled.
+     *
+     * @param stream stream with content
+     * @return stream with content
+     */
+    @SneakyThrows
+    private InputStream content(
+            final InputStream stream
+    ) {
+        InputStream content = new CountingInputStream(
+                stream,
+                metrics::bytesRead
+        );
+        if (!options.isBufferContent()) {
+            return content;
+        }
+        try (content) {
+            return new ByteArrayInputStream(content.readAllBytes());
+        }
     }
 
 }
@@ -0,0 +1,141 @@
+package io.github.ilyalisov.storage.service;
+
+/**
+ * Thread-safe approximate counter of recent frequency of keys. Counts are
+ * kept in count-min sketch of 4-bit counters, so memory use does not depend
+ * on number of keys. When number of increments reaches sample size, all
+ * counts are halved, so keys, which are not used anymore, become cold.
+ */
+class FrequencySketch {
+
+    /**
+     * Number of counters of each key.
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * Maximum value of counter.
+     */
+    private static final int MAX_COUNT = 15;
+
+    /**
+     * Number of counters in one word of table.
+     */
+    private static final int COUNTERS_PER_WORD = 16;
+
+    /**
+     * Multiplier of expected number of keys, which gives sample size.
+     */
+    private static final int SAMPLE_FACTOR = 10;
+
+    /**
+     * Mask, which clears highest bit of each counter after shift.
+     */
+    private static final long HALF_MASK = 0x7777777777777777L;
+
+    /**
+     * Counters packed by 16 into words.
+     */
+    private final long[] table;
+
+    /**
+     * Number of counters.
+     */
+    private final long size;
+
+    /**
+     * Number of increments, after which counts are halved.
+     */
+    private final long sampleSize;
+
+    /**
+     * Number of increments since counts were halved.
+     */
+    private long additions;
+
+    /**
+     * Creates an object.
+     *
+     * @param expectedKeys expected number of frequently used keys
+     */
+    FrequencySketch(
+            final long expectedKeys
+    ) {
+        if (expectedKeys <= 0) {
+            throw new IllegalArgumentException(
+                    "Expected number of keys must be positive number."
+            );
+        }
+        int words = (int) Math.min(
+                Integer.MAX_VALUE - 8,
+                Math.max(1, expectedKeys * DEPTH / COUNTERS_PER_WORD)
+        );
+        this.table = new long[words];
+        this.size = (long) words * COUNTERS_PER_WORD;
+        this.sampleSize = Math.max(
+                COUNTERS_PER_WORD,
+                expectedKeys * SAMPLE_FACTOR
+        );
+    }
+
+    /**
+     * Counts use of key.
+     *
+     * @param key key
+     */
+    synchronized void increment(
+            final String key
+    ) {
+        long hash1 = BloomFilter.hash(key);
+        long hash2 = BloomFilter.mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            long counter = Math.floorMod(hash1 + i * hash2, size);
+            int word = (int) (counter / COUNTERS_PER_WORD);
+            int shift = (int) (counter % COUNTERS_PER_WORD) * 4;
+            if (((table[word] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+                table[word] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Returns estimated recent frequency of key. Estimate may be higher
+     * than real frequency because of collisions, it is at most 15.
+     *
+     * @param key key
+     * @return frequency
+     */
+    synchronized int frequency(
+            final String key
+    ) {
+        long hash1 = BloomFilter.hash(key);
+        long hash2 = BloomFilter.mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            long counter = Math.floorMod(hash1 + i * hash2, size);
+            int word = (int) (counter / COUNTERS_PER_WORD);
+            int shift = (int) (counter % COUNTERS_PER_WORD) * 4;
+            frequency = Math.min(
+                    frequency,
+                    (int) ((table[word] >>> shift) & MAX_COUNT)
+            );
+        }
+        return frequency;
+    }
+
+    /**
+     * Halves all counts.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & HALF_MASK;
+        }
+        additions /= 2;
+    }
+
+}
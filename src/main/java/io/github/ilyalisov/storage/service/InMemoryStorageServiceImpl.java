@@ -0,0 +1,577 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.ConditionalResult;
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.FilePage;
+import io.github.ilyalisov.storage.config.Page;
+import io.github.ilyalisov.storage.config.StorageFile;
+import lombok.SneakyThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of StorageService, which keeps content of files in direct
+ * buffers outside of heap. Files are indexed by name in sorted map, so
+ * listing, checks and deletion of folders do not scan all files. When total
+ * size of files exceeds limit, files, which were not read recently, are
+ * evicted.
+ */
+public class InMemoryStorageServiceImpl implements StorageService {
+
+    /**
+     * Initial size of buffer for content of file.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Maximum size of buffer for content of file.
+     */
+    private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * Number of stale entries of clock tolerated before it is compacted.
+     */
+    private static final int CLOCK_SLACK = 64;
+
+    /**
+     * Files by name.
+     */
+    private final ConcurrentSkipListMap<String, Entry> entries =
+            new ConcurrentSkipListMap<>();
+
+    /**
+     * Files in order of saving, used as clock of eviction.
+     */
+    private final Queue<Map.Entry<String, Entry>> clock = new ArrayDeque<>();
+
+    /**
+     * Maximum total size of files in bytes.
+     */
+    private final long maxBytes;
+
+    /**
+     * Total size of files in bytes.
+     */
+    private long bytes;
+
+    /**
+     * Number of evicted files.
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Last version of saved file.
+     */
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * Creates an object without limit of memory.
+     */
+    public InMemoryStorageServiceImpl() {
+        this(Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param maxBytes maximum total size of files in bytes
+     */
+    public InMemoryStorageServiceImpl(
+            final long maxBytes
+    ) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException(
+                    "Memory limit must be positive number."
+            );
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns total size of files.
+     *
+     * @return size in bytes
+     */
+    public synchronized long getUsedBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns number of evicted files.
+     *
+     * @return number of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName
+    ) {
+        Entry entry = entries.get(fileName);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        entry.referenced = true;
+        return Optional.of(file(fileName, entry));
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final Path path
+    ) {
+        return find(fileName(path, fileName));
+    }
+
+    @Override
+    public ConditionalResult findIfChanged(
+            final String fileName,
+            final String etag
+    ) {
+        Entry entry = entries.get(fileName);
+        if (entry == null) {
+            return ConditionalResult.notFound();
+        }
+        entry.referenced = true;
+        if (etag != null && etag.equals(entry.etag())) {
+            return ConditionalResult.notModified();
+        }
+        return ConditionalResult.found(file(fileName, entry));
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final long offset,
+            final long length
+    ) {
+        Ranges.check(offset, length);
+        Entry entry = entries.get(fileName);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        entry.referenced = true;
+        int capacity = entry.content.capacity();
+        int start = (int) Math.min(offset, capacity);
+        int size = (int) Ranges.length(capacity, start, length);
+        ByteBuffer range = entry.content.duplicate();
+        range.position(start).limit(start + size);
+        StorageFile file = new StorageFile(
+                fileName,
+                entry.contentType,
+                new ByteBufferInputStream(range)
+        );
+        file.setSize(size);
+        file.setEtag(entry.etag());
+        file.setLastModified(entry.modified);
+        file.setContentEncoding(entry.contentEncoding);
+        return Optional.of(file);
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final Path path,
+            final long offset,
+            final long length
+    ) {
+        return find(fileName(path, fileName), offset, length);
+    }
+
+    @Override
+    @SneakyThrows
+    public OptionalLong findTo(
+            final String fileName,
+            final WritableByteChannel target
+    ) {
+        Entry entry = entries.get(fileName);
+        if (entry == null) {
+            return OptionalLong.empty();
+        }
+        entry.referenced = true;
+        ByteBuffer content = entry.content.duplicate();
+        while (content.hasRemaining()) {
+            target.write(content);
+        }
+        return OptionalLong.of(content.capacity());
+    }
+
+    @Override
+    @SneakyThrows
+    public OptionalLong findTo(
+            final String fileName,
+            final Path target
+    ) {
+        if (!entries.containsKey(fileName)) {
+            return OptionalLong.empty();
+        }
+        try (FileChannel channel = FileChannel.open(
+                target,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            return findTo(fileName, channel);
+        }
+    }
+
+    @Override
+    public List<StorageFile> findAll(
+            final Path path,
+            final Page page
+    ) {
+        return folder(path).entrySet().stream()
+                .skip(page.offset())
+                .limit(page.getPageSize())
+                .map(entry -> file(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public FilePage findAll(
+            final Path path,
+            final CursorPage page
+    ) {
+        NavigableMap<String, Entry> folder = folder(path);
+        if (page.getCursor() != null) {
+            folder = folder.tailMap(page.getCursor(), false);
+        }
+        List<StorageFile> files = folder.entrySet().stream()
+                .limit(page.getPageSize())
+                .map(entry -> file(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        CursorPage next = null;
+        if (files.size() == page.getPageSize()) {
+            StorageFile last = files.get(files.size() - 1);
+            next = new CursorPage(
+                    fileName(last.getPath(), last.getFileName()),
+                    page.getPageSize()
+            );
+        }
+        return new FilePage(files, next);
+    }
+
+    @Override
+    public boolean exists(
+            final String fileName
+    ) {
+        return entries.containsKey(fileName);
+    }
+
+    @Override
+    public boolean exists(
+            final String fileName,
+            final Path path
+    ) {
+        return exists(fileName(path, fileName));
+    }
+
+    @Override
+    @SneakyThrows
+    public Path save(
+            final StorageFile file
+    ) {
+        String fileName = fileName(file.getPath(), file.getFileName());
+        ByteBuffer content = read(file);
+        Entry entry = new Entry(
+                content,
+                file.getContentType(),
+                file.getContentEncoding(),
+                versions.incrementAndGet()
+        );
+        synchronized (this) {
+            Entry previous = entries.put(fileName, entry);
+            if (previous != null) {
+                bytes -= previous.content.capacity();
+            }
+            bytes += content.capacity();
+            clock.add(Map.entry(fileName, entry));
+            evict();
+            if (clock.size() > 2 * entries.size() + CLOCK_SLACK) {
+                clock.removeIf(e -> entries.get(e.getKey()) != e.getValue());
+            }
+        }
+        return Path.of(fileName);
+    }
+
+    @Override
+    public synchronized void delete(
+            final String fileName
+    ) {
+        Entry removed = entries.remove(fileName);
+        if (removed != null) {
+            bytes -= removed.content.capacity();
+        }
+    }
+
+    @Override
+    public void delete(
+            final String fileName,
+            final Path path
+    ) {
+        delete(fileName(path, fileName));
+    }
+
+    @Override
+    public synchronized DeleteResult delete(
+            final Path path
+    ) {
+        NavigableMap<String, Entry> folder = folder(path);
+        long deleted = 0;
+        for (Entry entry : folder.values()) {
+            bytes -= entry.content.capacity();
+            deleted++;
+        }
+        folder.clear();
+        return new DeleteResult(deleted, List.of());
+    }
+
+    /**
+     * Returns view of files in folder and its subfolders.
+     *
+     * @param path path to folder
+     * @return files by name
+     */
+    private NavigableMap<String, Entry> folder(
+            final Path path
+    ) {
+        String prefix = path + "/";
+        return entries.subMap(
+                prefix,
+                true,
+                prefix + Character.MAX_VALUE,
+                false
+        );
+    }
+
+    /**
+     * Evicts files, which were not read since previous pass of clock,
+     * until total size fits the limit.
+     */
+    private void evict() {
+        while (bytes > maxBytes) {
+            Map.Entry<String, Entry> candidate = clock.poll();
+            if (candidate == null) {
+                return;
+            }
+            Entry entry = candidate.getValue();
+            if (entries.get(candidate.getKey()) != entry) {
+                continue;
+            }
+            if (entry.referenced) {
+                entry.referenced = false;
+                clock.add(candidate);
+                continue;
+            }
+            entries.remove(candidate.getKey(), entry);
+            bytes -= entry.content.capacity();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Reads content of file into direct buffer of exact size. File of known
+     * size, which does not fit the limit, is rejected before its content is
+     * read.
+     *
+     * @param file file
+     * @return buffer with content
+     */
+    @SneakyThrows
+    private ByteBuffer read(
+            final StorageFile file
+    ) {
+        int capacity = (int) Math.min(INITIAL_BUFFER_SIZE, maxCapacity());
+        if (file.getSize() >= 0) {
+            if (file.getSize() > maxCapacity()) {
+                throw tooLarge();
+            }
+            capacity = (int) file.getSize();
+        }
+        if (file.getSource() == null) {
+            return read(Channels.newChannel(file.getInputStream()), capacity);
+        }
+        try (FileChannel channel = FileChannel.open(
+                file.getSource(),
+                StandardOpenOption.READ
+        )) {
+            return read(channel, capacity);
+        }
+    }
+
+    /**
+     * Reads content of channel into direct buffer of exact size.
+     *
+     * @param channel  channel with content
+     * @param capacity expected size of content
+     * @return buffer with content
+     */
+    @SneakyThrows
+    private ByteBuffer read(
+            final ReadableByteChannel channel,
+            final int capacity
+    ) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(capacity);
+        ByteBuffer probe = ByteBuffer.allocate(1);
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                probe.clear();
+                if (channel.read(probe) < 0) {
+                    break;
+                }
+                if (buffer.capacity() >= maxCapacity()) {
+                    throw tooLarge();
+                }
+                buffer = grow(buffer);
+                probe.flip();
+                buffer.put(probe);
+            }
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        if (buffer.capacity() == buffer.limit()) {
+            return buffer.asReadOnlyBuffer();
+        }
+        ByteBuffer content = ByteBuffer.allocateDirect(buffer.limit());
+        content.put(buffer);
+        content.flip();
+        return content.asReadOnlyBuffer();
+    }
+
+    /**
+     * Allocates larger buffer, which does not exceed maximum size of file,
+     * and copies content to it.
+     *
+     * @param buffer full buffer
+     * @return larger buffer with content
+     */
+    private ByteBuffer grow(
+            final ByteBuffer buffer
+    ) {
+        long capacity = Math.min(
+                Math.max(INITIAL_BUFFER_SIZE, 2L * buffer.capacity()),
+                maxCapacity()
+        );
+        ByteBuffer grown = ByteBuffer.allocateDirect((int) capacity);
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+
+    /**
+     * Returns maximum size of file, which is the limit of memory, but not
+     * more than maximum size of buffer.
+     *
+     * @return size in bytes
+     */
+    private long maxCapacity() {
+        return Math.min(maxBytes, MAX_BUFFER_SIZE);
+    }
+
+    private IllegalArgumentException tooLarge() {
+        if (maxBytes > MAX_BUFFER_SIZE) {
+            return new IllegalArgumentException("File is larger than 2 GiB.");
+        }
+        return new IllegalArgumentException(
+                "File is larger than memory limit."
+        );
+    }
+
+    private StorageFile file(
+            final String fileName,
+            final Entry entry
+    ) {
+        StorageFile file = new StorageFile(
+                fileName,
+                entry.contentType,
+                new ByteBufferInputStream(entry.content)
+        );
+        file.setSize(entry.content.capacity());
+        file.setEtag(entry.etag());
+        file.setLastModified(entry.modified);
+        file.setContentEncoding(entry.contentEncoding);
+        return file;
+    }
+
+    /**
+     * Stored file.
+     */
+    private static final class Entry {
+
+        /**
+         * Read-only buffer with content.
+         */
+        private final ByteBuffer content;
+
+        /**
+         * Content type.
+         */
+        private final String contentType;
+
+        /**
+         * Encoding of content, null if content is stored as is.
+         */
+        private final String contentEncoding;
+
+        /**
+         * Version of file, unique among saved files.
+         */
+        private final long version;
+
+        /**
+         * Time of saving.
+         */
+        private final Instant modified = Instant.now();
+
+        /**
+         * Whether file was read since previous pass of eviction clock.
+         */
+        private volatile boolean referenced;
+
+        private Entry(
+                final ByteBuffer content,
+                final String contentType,
+                final String contentEncoding,
+                final long version
+        ) {
+            this.content = content;
+            this.contentType = contentType;
+            this.contentEncoding = contentEncoding;
+            this.version = version;
+        }
+
+        /**
+         * Returns version of file as ETag.
+         *
+         * @return version of file
+         */
+        private String etag() {
+            return Long.toHexString(version);
+        }
+
+    }
+
+}
@@ -0,0 +1,126 @@
+package io.github.ilyalisov.storage.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Invalidations of files, which are fetched to be cached, so fetch raced by
+ * save or delete of the same file or its folder is not cached. Writes of
+ * other files do not affect fetch. Invalidations are recorded only for files
+ * and folders, which are being fetched, so memory use is bounded by number
+ * of concurrent fetches.
+ * <p>
+ * Class is not thread-safe, calls must be guarded by lock of owner, which
+ * also guards its cache.
+ */
+final class Invalidations {
+
+    /**
+     * Number of invalidations.
+     */
+    private long clock;
+
+    /**
+     * Number of fetches in flight by name of file.
+     */
+    private final Map<String, Integer> fetches = new HashMap<>();
+
+    /**
+     * Time of last invalidation of files, which are being fetched.
+     */
+    private final Map<String, Long> files = new HashMap<>();
+
+    /**
+     * Time of last invalidation of folders by prefix, which have files
+     * being fetched.
+     */
+    private final Map<String, Long> folders = new HashMap<>();
+
+    /**
+     * Registers fetch of file.
+     *
+     * @param fileName name of file
+     * @return time of start of fetch
+     */
+    long begin(
+            final String fileName
+    ) {
+        fetches.merge(fileName, 1, Integer::sum);
+        return clock;
+    }
+
+    /**
+     * Unregisters fetch of file.
+     *
+     * @param fileName name of file
+     */
+    void end(
+            final String fileName
+    ) {
+        Integer left = fetches.computeIfPresent(
+                fileName,
+                (name, count) -> count == 1 ? null : count - 1
+        );
+        if (left == null) {
+            files.remove(fileName);
+        }
+        if (!folders.isEmpty()) {
+            folders.keySet().removeIf(prefix -> fetches.keySet().stream()
+                    .noneMatch(name -> name.startsWith(prefix)));
+        }
+    }
+
+    /**
+     * Checks if file and its folders were not invalidated since fetch
+     * started.
+     *
+     * @param fileName name of file
+     * @param start    time of start of fetch
+     * @return true - if fetched file is current, false - otherwise
+     */
+    boolean isCurrent(
+            final String fileName,
+            final long start
+    ) {
+        if (files.getOrDefault(fileName, start) > start) {
+            return false;
+        }
+        for (Map.Entry<String, Long> folder : folders.entrySet()) {
+            if (folder.getValue() > start
+                    && fileName.startsWith(folder.getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Invalidates file.
+     *
+     * @param fileName name of file
+     */
+    void invalidate(
+            final String fileName
+    ) {
+        clock++;
+        if (fetches.containsKey(fileName)) {
+            files.put(fileName, clock);
+        }
+    }
+
+    /**
+     * Invalidates all files in folder.
+     *
+     * @param prefix prefix of names of files in folder
+     */
+    void invalidateFolder(
+            final String prefix
+    ) {
+        clock++;
+        if (fetches.keySet().stream()
+                .anyMatch(name -> name.startsWith(prefix))) {
+            folders.put(prefix, clock);
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package io.github.ilyalisov.storage.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream, which reads at most given number of bytes of underlying
+ * stream.
+ */
+class LimitedInputStream extends FilterInputStream {
+
+    /**
+     * Number of bytes left to read.
+     */
+    private long remaining;
+
+    /**
+     * Creates an object.
+     *
+     * @param stream underlying stream
+     * @param limit  maximum number of bytes to read
+     */
+    LimitedInputStream(
+            final InputStream stream,
+            final long limit
+    ) {
+        super(stream);
+        this.remaining = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int result = super.read();
+        if (result >= 0) {
+            remaining--;
+        }
+        return result;
+    }
+
+    @Override
+    public int read(
+            final byte[] bytes,
+            final int offset,
+            final int length
+    ) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (remaining <= 0) {
+            return -1;
+        }
+        int result = super.read(
+                bytes,
+                offset,
+                (int) Math.min(length, remaining)
+        );
+        if (result > 0) {
+            remaining -= result;
+        }
+        return result;
+    }
+
+    @Override
+    public long skip(
+            final long n
+    ) throws IOException {
+        long result = super.skip(Math.min(n, remaining));
+        remaining -= result;
+        return result;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(super.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+}
@@ -0,0 +1,241 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.FilePage;
+import io.github.ilyalisov.storage.config.StorageFile;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Publisher of files of folder, which fetches pages of listing only when
+ * subscriber requests more files. At most one page is fetched at a time and
+ * at most one page is kept in memory for each subscriber, so memory use does
+ * not depend on size of folder. Each subscriber lists folder from its first
+ * page.
+ */
+final class ListingPublisher implements Flow.Publisher<StorageFile> {
+
+    /**
+     * Function, which fetches page of listing.
+     */
+    private final Function<CursorPage, CompletableFuture<FilePage>> pages;
+
+    /**
+     * First page of listing.
+     */
+    private final CursorPage first;
+
+    /**
+     * Creates an object.
+     *
+     * @param pages function, which fetches page of listing
+     * @param first first page of listing
+     */
+    ListingPublisher(
+            final Function<CursorPage, CompletableFuture<FilePage>> pages,
+            final CursorPage first
+    ) {
+        this.pages = pages;
+        this.first = first;
+    }
+
+    @Override
+    public void subscribe(
+            final Flow.Subscriber<? super StorageFile> subscriber
+    ) {
+        Objects.requireNonNull(subscriber);
+        Listing listing = new Listing(subscriber);
+        subscriber.onSubscribe(listing);
+    }
+
+    /**
+     * Listing of one subscriber. Signals to subscriber are sent only from
+     * drain loop, which is entered by one thread at a time, so requests
+     * made from onNext do not recurse.
+     */
+    private final class Listing implements Flow.Subscription {
+
+        /**
+         * Subscriber.
+         */
+        private final Flow.Subscriber<? super StorageFile> subscriber;
+
+        /**
+         * Number of requested files, which were not sent yet.
+         */
+        private final AtomicLong demand = new AtomicLong();
+
+        /**
+         * Number of drain calls, which were not processed yet.
+         */
+        private final AtomicInteger pending = new AtomicInteger();
+
+        /**
+         * Files of fetched page, which were not sent yet. Accessed only from
+         * drain loop.
+         */
+        private final Queue<StorageFile> files = new ArrayDeque<>();
+
+        /**
+         * Next page to fetch, null if last page was fetched. Accessed only
+         * from drain loop.
+         */
+        private CursorPage next = first;
+
+        /**
+         * Whether page is being fetched. Accessed only from drain loop.
+         */
+        private boolean fetching;
+
+        /**
+         * Whether terminal signal was sent or listing was cancelled.
+         * Accessed only from drain loop.
+         */
+        private boolean done;
+
+        /**
+         * Fetched page, which was not taken by drain loop yet.
+         */
+        private volatile FilePage fetched;
+
+        /**
+         * Error of listing or of invalid request.
+         */
+        private volatile Throwable error;
+
+        /**
+         * Whether subscriber cancelled listing.
+         */
+        private volatile boolean cancelled;
+
+        private Listing(
+                final Flow.Subscriber<? super StorageFile> subscriber
+        ) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(
+                final long n
+        ) {
+            if (n <= 0) {
+                error = new IllegalArgumentException(
+                        "Number of requested files must be positive number."
+                );
+            } else {
+                demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        /**
+         * Sends files to subscriber while there is demand and starts fetch
+         * of next page, when fetched files are sent.
+         */
+        private void drain() {
+            if (pending.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                step();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Sends as many files as possible.
+         */
+        private void step() {
+            while (!done) {
+                if (cancelled) {
+                    done = true;
+                    files.clear();
+                    return;
+                }
+                if (error != null) {
+                    done = true;
+                    files.clear();
+                    subscriber.onError(error);
+                    return;
+                }
+                FilePage page = fetched;
+                if (page != null) {
+                    fetched = null;
+                    fetching = false;
+                    files.addAll(page.getFiles());
+                    next = page.getNext();
+                }
+                if (!files.isEmpty()) {
+                    if (demand.get() == 0) {
+                        return;
+                    }
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    subscriber.onNext(files.poll());
+                    continue;
+                }
+                if (fetching) {
+                    return;
+                }
+                if (next == null) {
+                    done = true;
+                    subscriber.onComplete();
+                    return;
+                }
+                if (demand.get() == 0) {
+                    return;
+                }
+                fetching = true;
+                fetch(next);
+                return;
+            }
+        }
+
+        /**
+         * Starts fetch of page. Drain loop is resumed, when page is fetched.
+         *
+         * @param page page to fetch
+         */
+        private void fetch(
+                final CursorPage page
+        ) {
+            CompletableFuture<FilePage> result;
+            try {
+                result = pages.apply(page);
+            } catch (Throwable e) {
+                error = e;
+                drain();
+                return;
+            }
+            result.whenComplete((filePage, e) -> {
+                if (e == null) {
+                    fetched = filePage;
+                } else if (e instanceof CompletionException
+                        && e.getCause() != null) {
+                    error = e.getCause();
+                } else {
+                    error = e;
+                }
+                drain();
+            });
+        }
+
+    }
+
+}
@@ -0,0 +1,989 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.ConditionalResult;
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.FilePage;
+import io.github.ilyalisov.storage.config.Page;
+import io.github.ilyalisov.storage.config.SaveResult;
+import io.github.ilyalisov.storage.config.StorageFile;
+import io.github.ilyalisov.storage.config.StorageOptions;
+import io.github.ilyalisov.storage.metrics.StorageMetrics;
+import lombok.SneakyThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of StorageService based on local file system. Names of
+ * files are mapped onto directory tree under root directory. Content type
+ * is kept in user-defined file attribute, if file system supports it.
+ */
+public class LocalFileStorageServiceImpl implements AsyncStorageService {
+
+    /**
+     * Name of file attribute with content type.
+     */
+    private static final String CONTENT_TYPE_ATTRIBUTE = "content-type";
+
+    /**
+     * Name of file attribute with encoding of content.
+     */
+    private static final String ENCODING_ATTRIBUTE = "content-encoding";
+
+    /**
+     * Suffix of temporary files, which are written before they are moved
+     * to their place.
+     */
+    private static final String TEMP_SUFFIX = ".part";
+
+    /**
+     * Root directory.
+     */
+    private final Path root;
+
+    /**
+     * Options of service.
+     */
+    private final StorageOptions options;
+
+    /**
+     * Executor of asynchronous methods, as file channels are blocking.
+     */
+    private final Executor executor;
+
+    /**
+     * Metrics of operations.
+     */
+    private final StorageMetrics metrics;
+
+    /**
+     * Creates an object.
+     *
+     * @param root root directory
+     */
+    public LocalFileStorageServiceImpl(
+            final Path root
+    ) {
+        this(
+                root,
+                StorageOptions.defaults()
+        );
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param root    root directory
+     * @param options options of service
+     */
+    @SneakyThrows
+    public LocalFileStorageServiceImpl(
+            final Path root,
+            final StorageOptions options
+    ) {
+        this.root = root.toAbsolutePath().normalize();
+        this.options = options;
+        this.metrics = options.getMetrics();
+        this.executor = Objects.requireNonNullElseGet(
+                options.getExecutor(),
+                () -> StorageExecutors.newExecutor(
+                        options.getExecutionMode()
+                )
+        );
+        Files.createDirectories(this.root);
+    }
+
+    /**
+     * Returns root directory.
+     *
+     * @return root directory
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public StorageOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Returns zero, as content is streamed to file.
+     *
+     * @return size of buffer in bytes
+     */
+    @Override
+    public long getUploadBufferSize() {
+        return 0;
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName
+    ) {
+        return Metered.call(
+                metrics,
+                "find",
+                () -> open(fileName, 0, Long.MAX_VALUE)
+        );
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final Path path
+    ) {
+        return find(fileName(path, fileName));
+    }
+
+    @Override
+    public ConditionalResult findIfChanged(
+            final String fileName,
+            final String etag
+    ) {
+        return Metered.call(metrics, "findIfChanged", () -> {
+            BasicFileAttributes attributes = attributes(resolve(fileName));
+            if (attributes == null) {
+                return ConditionalResult.notFound();
+            }
+            if (etag != null && etag.equals(etag(attributes))) {
+                return ConditionalResult.notModified();
+            }
+            return open(fileName, 0, Long.MAX_VALUE)
+                    .map(ConditionalResult::found)
+                    .orElseGet(ConditionalResult::notFound);
+        });
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final long offset,
+            final long length
+    ) {
+        return Metered.call(
+                metrics,
+                "findRange",
+                () -> open(fileName, offset, length)
+        );
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final Path path,
+            final long offset,
+            final long length
+    ) {
+        return find(fileName(path, fileName), offset, length);
+    }
+
+    @Override
+    public OptionalLong findTo(
+            final String fileName,
+            final WritableByteChannel target
+    ) {
+        return Metered.call(metrics, "findTo", () -> {
+            Path file = resolve(fileName);
+            if (!Files.isRegularFile(file)) {
+                return OptionalLong.empty();
+            }
+            try (FileChannel channel = FileChannel.open(
+                    file,
+                    StandardOpenOption.READ
+            )) {
+                return OptionalLong.of(transfer(channel, target));
+            } catch (NoSuchFileException e) {
+                return OptionalLong.empty();
+            }
+        });
+    }
+
+    @Override
+    public OptionalLong findTo(
+            final String fileName,
+            final Path target
+    ) {
+        return Metered.call(metrics, "findTo", () -> {
+            Path file = resolve(fileName);
+            if (!Files.isRegularFile(file)) {
+                return OptionalLong.empty();
+            }
+            try (FileChannel channel = FileChannel.open(
+                    file,
+                    StandardOpenOption.READ
+            );
+                 FileChannel out = FileChannel.open(
+                         target,
+                         StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING
+                 )) {
+                return OptionalLong.of(transfer(channel, out));
+            } catch (NoSuchFileException e) {
+                return OptionalLong.empty();
+            }
+        });
+    }
+
+    @Override
+    public List<StorageFile> findAll(
+            final Path path,
+            final Page page
+    ) {
+        return Metered.call(metrics, "findAll", () -> {
+            return list(path, null, page.offset() + page.getPageSize())
+                    .stream()
+                    .skip(page.offset())
+                    .map(this::file)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Override
+    public FilePage findAll(
+            final Path path,
+            final CursorPage page
+    ) {
+        return Metered.call(metrics, "findAll", () -> {
+            List<StorageFile> files = list(
+                    path,
+                    page.getCursor(),
+                    page.getPageSize()
+            ).stream()
+                    .map(this::file)
+                    .collect(Collectors.toList());
+            CursorPage next = null;
+            if (files.size() == page.getPageSize()) {
+                StorageFile last = files.get(files.size() - 1);
+                next = new CursorPage(
+                        fileName(last.getPath(), last.getFileName()),
+                        page.getPageSize()
+                );
+            }
+            return new FilePage(files, next);
+        });
+    }
+
+    @Override
+    public boolean exists(
+            final String fileName
+    ) {
+        return Metered.call(
+                metrics,
+                "exists",
+                () -> Files.isRegularFile(resolve(fileName))
+        );
+    }
+
+    @Override
+    public boolean exists(
+            final String fileName,
+            final Path path
+    ) {
+        return exists(fileName(path, fileName));
+    }
+
+    @Override
+    public Path save(
+            final StorageFile file
+    ) {
+        return Metered.call(metrics, "save", () -> {
+            String fileName = fileName(file.getPath(), file.getFileName());
+            Path target = resolve(fileName);
+            Path temp = createTempFile(target);
+            try {
+                try (ReadableByteChannel in = channel(file);
+                     FileChannel out = FileChannel.open(
+                             temp,
+                             StandardOpenOption.WRITE
+                     )) {
+                    long position = 0;
+                    long transferred;
+                    do {
+                        transferred = out.transferFrom(
+                                in,
+                                position,
+                                Long.MAX_VALUE
+                        );
+                        position += transferred;
+                    } while (transferred > 0);
+                    out.force(false);
+                    metrics.bytesWritten(position);
+                }
+                setContentType(temp, file.getContentType());
+                setContentEncoding(temp, file.getContentEncoding());
+                move(temp, target);
+            } catch (Exception e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            return Path.of(fileName);
+        });
+    }
+
+    @Override
+    public void saveAll(
+            final Iterable<StorageFile> files,
+            final Consumer<SaveResult> results
+    ) {
+        Metered.run(
+                metrics,
+                "saveAll",
+                () -> new BulkSave(this, options, results)
+                        .run(files.iterator())
+        );
+    }
+
+    @Override
+    public void delete(
+            final String fileName
+    ) {
+        Metered.run(metrics, "delete", () -> {
+            Path file = resolve(fileName);
+            if (!Files.isDirectory(file) && Files.deleteIfExists(file)) {
+                deleteEmptyParents(file);
+            }
+        });
+    }
+
+    @Override
+    public void delete(
+            final String fileName,
+            final Path path
+    ) {
+        delete(fileName(path, fileName));
+    }
+
+    @Override
+    public DeleteResult delete(
+            final Path path
+    ) {
+        return Metered.call(metrics, "deleteFolder", () -> {
+            Path folder = resolve(path.toString());
+            if (!Files.isDirectory(folder)) {
+                return new DeleteResult(0, List.of());
+            }
+            long deleted = 0;
+            List<String> failed = new ArrayList<>();
+            List<Path> files;
+            try (Stream<Path> walked = Files.walk(folder)) {
+                files = walked.sorted(Comparator.reverseOrder())
+                        .collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                try {
+                    if (Files.isDirectory(file)) {
+                        Files.deleteIfExists(file);
+                    } else if (Files.deleteIfExists(file) && !isTemp(file)) {
+                        deleted++;
+                    }
+                } catch (DirectoryNotEmptyException e) {
+                    // directory contains file, which failed to delete
+                } catch (IOException e) {
+                    failed.add(key(file));
+                }
+            }
+            deleteEmptyParents(folder);
+            return new DeleteResult(deleted, failed);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Optional<StorageFile>> findAsync(
+            final String fileName
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> find(fileName),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<List<StorageFile>> findAllAsync(
+            final Path path,
+            final Page page
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> findAll(path, page),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<FilePage> findAllAsync(
+            final Path path,
+            final CursorPage page
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> findAll(path, page),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<Boolean> existsAsync(
+            final String fileName
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> exists(fileName),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<Path> saveAsync(
+            final StorageFile file
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> save(file),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(
+            final String fileName
+    ) {
+        return CompletableFuture.runAsync(
+                () -> delete(fileName),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<DeleteResult> deleteAsync(
+            final Path path
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> delete(path),
+                executor
+        );
+    }
+
+    /**
+     * Opens range of file for reading.
+     *
+     * @param fileName name of file
+     * @param offset   offset of first byte
+     * @param length   maximum number of bytes
+     * @return file or empty if it does not exist
+     */
+    @SneakyThrows
+    private Optional<StorageFile> open(
+            final String fileName,
+            final long offset,
+            final long length
+    ) {
+        Ranges.check(offset, length);
+        Path file = resolve(fileName);
+        BasicFileAttributes attributes = attributes(file);
+        if (attributes == null) {
+            return Optional.empty();
+        }
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        long size = Ranges.length(channel.size(), offset, length);
+        channel.position(offset);
+        StorageFile result = new StorageFile(
+                fileName,
+                contentType(file),
+                content(channel, size)
+        );
+        result.setSize(size);
+        version(result, attributes);
+        result.setContentEncoding(attribute(file, ENCODING_ATTRIBUTE));
+        return Optional.of(result);
+    }
+
+    /**
+     * Reads attributes of regular file.
+     *
+     * @param file path to file
+     * @return attributes or null if file does not exist
+     */
+    @SneakyThrows
+    private BasicFileAttributes attributes(
+            final Path file
+    ) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(
+                    file,
+                    BasicFileAttributes.class
+            );
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            return attributes;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sets version and time of modification of file from its attributes.
+     * Attributes are read before file is opened, so version is never newer
+     * than content.
+     *
+     * @param file       file
+     * @param attributes attributes of file
+     */
+    private void version(
+            final StorageFile file,
+            final BasicFileAttributes attributes
+    ) {
+        file.setEtag(etag(attributes));
+        file.setLastModified(attributes.lastModifiedTime().toInstant());
+    }
+
+    /**
+     * Returns version of file built from time of modification and size.
+     * Saved files replace previous ones, so time of modification changes
+     * with every save.
+     *
+     * @param attributes attributes of file
+     * @return version of file
+     */
+    private String etag(
+            final BasicFileAttributes attributes
+    ) {
+        return Long.toHexString(
+                attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS)
+        ) + "-" + Long.toHexString(attributes.size());
+    }
+
+    /**
+     * Resolves name of file against root directory.
+     *
+     * @param fileName name of file
+     * @return path to file
+     */
+    private Path resolve(
+            final String fileName
+    ) {
+        Path file = root.resolve(fileName).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            throw new IllegalArgumentException(
+                    "File name must point inside root directory."
+            );
+        }
+        return file;
+    }
+
+    /**
+     * Returns name of file by its path.
+     *
+     * @param file path to file
+     * @return name of file
+     */
+    private String key(
+            final Path file
+    ) {
+        return root.relativize(file)
+                .toString()
+                .replace(file.getFileSystem().getSeparator(), "/");
+    }
+
+    /**
+     * Lists files in folder and its subfolders in order of names. Folders
+     * are traversed in order of names and only until enough files are
+     * found, folders with files before cursor are not traversed, so cost
+     * of listing depends on size of page, not on size of folder.
+     *
+     * @param path   path to folder
+     * @param cursor name of file to list files after, null to list from
+     *               the first file
+     * @param limit  maximum number of files
+     * @return paths to files
+     */
+    @SneakyThrows
+    private List<Path> list(
+            final Path path,
+            final String cursor,
+            final long limit
+    ) {
+        List<Path> files = new ArrayList<>();
+        Path folder = resolve(path.toString());
+        if (Files.isDirectory(folder)) {
+            list(folder, cursor, limit, files);
+        }
+        return files;
+    }
+
+    /**
+     * Adds files of directory and its subdirectories after cursor to list
+     * in order of names. Names of directories are compared with trailing
+     * slash, so their files are listed in the same order as names of
+     * files.
+     *
+     * @param directory directory
+     * @param cursor    name of file to list files after, null to list from
+     *                  the first file
+     * @param limit     maximum number of files in list
+     * @param files     list of files
+     * @throws IOException if directory can not be read
+     */
+    private void list(
+            final Path directory,
+            final String cursor,
+            final long limit,
+            final List<Path> files
+    ) throws IOException {
+        List<Map.Entry<String, Path>> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream =
+                     Files.newDirectoryStream(directory)) {
+            for (Path child : stream) {
+                if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    children.add(Map.entry(key(child) + "/", child));
+                } else if (Files.isRegularFile(child) && !isTemp(child)) {
+                    children.add(Map.entry(key(child), child));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        children.sort(Map.Entry.comparingByKey());
+        for (Map.Entry<String, Path> child : children) {
+            if (files.size() >= limit) {
+                return;
+            }
+            String key = child.getKey();
+            if (!key.endsWith("/")) {
+                if (cursor == null || key.compareTo(cursor) > 0) {
+                    files.add(child.getValue());
+                }
+            } else if (cursor == null
+                    || cursor.compareTo(key) < 0
+                    || cursor.startsWith(key)) {
+                list(child.getValue(), cursor, limit, files);
+            }
+        }
+    }
+
+    /**
+     * Transfers whole content of file to channel. File system may copy
+     * content without passing it through user space.
+     *
+     * @param channel channel of file
+     * @param target  target channel
+     * @return number of transferred bytes
+     */
+    @SneakyThrows
+    private long transfer(
+            final FileChannel channel,
+            final WritableByteChannel target
+    ) {
+        long size = channel.size();
+        long position = 0;
+        while (position < size) {
+            position += channel.transferTo(
+                    position,
+                    size - position,
+                    target
+            );
+        }
+        metrics.bytesRead(position);
+        return position;
+    }
+
+    private boolean isTemp(
+            final Path file
+    ) {
+        String name = file.getFileName().toString();
+        return name.startsWith(".") && name.endsWith(TEMP_SUFFIX);
+    }
+
+    /**
+     * Creates file from listed path. Content of file is opened only when
+     * it is read.
+     *
+     * @param file path to file
+     * @return file
+     */
+    @SneakyThrows
+    private StorageFile file(
+            final Path file
+    ) {
+        BasicFileAttributes attributes = Files.readAttributes(
+                file,
+                BasicFileAttributes.class
+        );
+        StorageFile result = new StorageFile(
+                key(file),
+                null,
+                contentType(file),
+                attributes.size(),
+                () -> {
+                    try {
+                        FileChannel channel = FileChannel.open(
+                                file,
+                                StandardOpenOption.READ
+                        );
+                        return content(channel, channel.size());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+        );
+        version(result, attributes);
+        result.setContentEncoding(attribute(file, ENCODING_ATTRIBUTE));
+        return result;
+    }
+
+    /**
+     * Returns content of file. By default, content is streamed from file
+     * channel, if content buffering is enabled, it is read into memory.
+     *
+     * @param channel opened channel of file at position of first byte
+     * @param length  number of bytes to read
+     * @return stream with content
+     */
+    @SneakyThrows
+    private InputStream content(
+            final FileChannel channel,
+            final long length
+    ) {
+        InputStream content = new CountingInputStream(
+                Channels.newInputStream(channel),
+                metrics::bytesRead
+        );
+        if (length < channel.size() - channel.position()) {
+            content = new LimitedInputStream(content, length);
+        }
+        if (!options.isBufferContent()) {
+            return content;
+        }
+        try (InputStream stream = content) {
+            return new ByteArrayInputStream(stream.readAllBytes());
+        }
+    }
+
+    /**
+     * Reads content type of file from file attribute. If file system does
+     * not support attributes, content type is guessed by name of file.
+     *
+     * @param file path to file
+     * @return content type, null if it is unknown
+     */
+    @SneakyThrows
+    private String contentType(
+            final Path file
+    ) {
+        String contentType = attribute(file, CONTENT_TYPE_ATTRIBUTE);
+        if (contentType != null) {
+            return contentType;
+        }
+        return Files.probeContentType(file);
+    }
+
+    /**
+     * Reads file attribute.
+     *
+     * @param file path to file
+     * @param name name of attribute
+     * @return value of attribute, null if it is not set or not supported
+     */
+    private String attribute(
+            final Path file,
+            final String name
+    ) {
+        UserDefinedFileAttributeView view = Files.getFileAttributeView(
+                file,
+                UserDefinedFileAttributeView.class
+        );
+        if (view == null) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(view.size(name));
+            view.read(name, buffer);
+            buffer.flip();
+            return StandardCharsets.UTF_8.decode(buffer).toString();
+        } catch (IOException | UnsupportedOperationException e) {
+            // attribute is not set or not supported
+            return null;
+        }
+    }
+
+    /**
+     * Writes encoding of content to file attribute. Unlike content type,
+     * encoding can not be guessed on read, so file is not saved if file
+     * system does not support attributes.
+     *
+     * @param file            path to file
+     * @param contentEncoding encoding of content, null if there is none
+     */
+    @SneakyThrows
+    private void setContentEncoding(
+            final Path file,
+            final String contentEncoding
+    ) {
+        if (contentEncoding == null) {
+            return;
+        }
+        UserDefinedFileAttributeView view = Files.getFileAttributeView(
+                file,
+                UserDefinedFileAttributeView.class
+        );
+        if (view == null) {
+            throw new UnsupportedOperationException(
+                    "File system does not support content encoding."
+            );
+        }
+        view.write(
+                ENCODING_ATTRIBUTE,
+                StandardCharsets.UTF_8.encode(contentEncoding)
+        );
+    }
+
+    private void setContentType(
+            final Path file,
+            final String contentType
+    ) {
+        UserDefinedFileAttributeView view = Files.getFileAttributeView(
+                file,
+                UserDefinedFileAttributeView.class
+        );
+        if (view == null || contentType == null) {
+            return;
+        }
+        try {
+            view.write(
+                    CONTENT_TYPE_ATTRIBUTE,
+                    StandardCharsets.UTF_8.encode(contentType)
+            );
+        } catch (IOException | UnsupportedOperationException e) {
+            // content type is guessed by name of file on read
+        }
+    }
+
+    /**
+     * Opens channel with content of file. Content of local file is read
+     * from file channel, so it is transferred by file system.
+     *
+     * @param file file
+     * @return channel with content
+     */
+    @SneakyThrows
+    private ReadableByteChannel channel(
+            final StorageFile file
+    ) {
+        if (file.getSource() != null) {
+            return FileChannel.open(
+                    file.getSource(),
+                    StandardOpenOption.READ
+            );
+        }
+        return Channels.newChannel(file.getInputStream());
+    }
+
+    /**
+     * Creates temporary file next to target file. Directory is created
+     * again, if it was deleted concurrently as empty one.
+     *
+     * @param target path to file
+     * @return path to temporary file
+     */
+    @SneakyThrows
+    private Path createTempFile(
+            final Path target
+    ) {
+        while (true) {
+            Files.createDirectories(target.getParent());
+            try {
+                return Files.createTempFile(
+                        target.getParent(),
+                        "." + target.getFileName() + ".",
+                        TEMP_SUFFIX
+                );
+            } catch (NoSuchFileException e) {
+                // directory was deleted, try again
+            }
+        }
+    }
+
+    /**
+     * Moves written file to its place, so readers never see partially
+     * written content.
+     *
+     * @param source temporary file
+     * @param target path to file
+     */
+    @SneakyThrows
+    private void move(
+            final Path source,
+            final Path target
+    ) {
+        try {
+            Files.move(
+                    source,
+                    target,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING
+            );
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(
+                    source,
+                    target,
+                    StandardCopyOption.REPLACE_EXISTING
+            );
+        }
+    }
+
+    /**
+     * Deletes empty directories between file and root directory.
+     *
+     * @param file path to deleted file
+     */
+    private void deleteEmptyParents(
+            final Path file
+    ) {
+        Path parent = file.getParent();
+        while (parent != null && !parent.equals(root)) {
+            try {
+                Files.delete(parent);
+            } catch (IOException e) {
+                return;
+            }
+            parent = parent.getParent();
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.metrics.StorageMetrics;
+import lombok.SneakyThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Utility methods of reporting operations of services to metrics.
+ */
+final class Metered {
+
+    private Metered() {
+    }
+
+    /**
+     * Runs operation and records its duration and outcome.
+     *
+     * @param metrics   metrics
+     * @param operation name of operation
+     * @param call      operation
+     * @param <T>       type of result
+     * @return result of operation
+     */
+    @SneakyThrows
+    static <T> T call(
+            final StorageMetrics metrics,
+            final String operation,
+            final Call<T> call
+    ) {
+        StorageMetrics.Sample sample = metrics.start(operation);
+        T result;
+        try {
+            result = call.call();
+        } catch (Throwable e) {
+            sample.failure(e);
+            throw e;
+        }
+        sample.success();
+        return result;
+    }
+
+    /**
+     * Runs operation without result and records its duration and outcome.
+     *
+     * @param metrics   metrics
+     * @param operation name of operation
+     * @param action    operation
+     */
+    static void run(
+            final StorageMetrics metrics,
+            final String operation,
+            final Action action
+    ) {
+        call(metrics, operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Starts asynchronous operation and records its duration and outcome
+     * when it completes.
+     *
+     * @param metrics   metrics
+     * @param operation name of operation
+     * @param call      operation
+     * @param <T>       type of result
+     * @return future of result
+     */
+    static <T> CompletableFuture<T> async(
+            final StorageMetrics metrics,
+            final String operation,
+            final Supplier<CompletableFuture<T>> call
+    ) {
+        StorageMetrics.Sample sample = metrics.start(operation);
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            sample.failure(e);
+            throw e;
+        }
+        return result.whenComplete((value, e) -> {
+            if (e == null) {
+                sample.success();
+            } else {
+                sample.failure(cause(e));
+            }
+        });
+    }
+
+    /**
+     * Returns error, which completed future, without wrapper of
+     * completion stage.
+     *
+     * @param error error of future
+     * @return cause of error
+     */
+    private static Throwable cause(
+            final Throwable error
+    ) {
+        if (error instanceof CompletionException
+                && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Operation of service, which may throw checked exception.
+     *
+     * @param <T> type of result
+     */
+    @FunctionalInterface
+    interface Call<T> {
+
+        /**
+         * Runs operation.
+         *
+         * @return result of operation
+         * @throws Exception if operation fails
+         */
+        T call() throws Exception;
+
+    }
+
+    /**
+     * Operation of service without result, which may throw checked
+     * exception.
+     */
+    @FunctionalInterface
+    interface Action {
+
+        /**
+         * Runs operation.
+         *
+         * @throws Exception if operation fails
+         */
+        void run() throws Exception;
+
+    }
+
+}
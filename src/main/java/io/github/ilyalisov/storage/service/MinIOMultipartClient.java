@@ -0,0 +1,241 @@
+package io.github.ilyalisov.storage.service;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.ListObjectsV2Response;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.ListBucketResultV2;
+import io.minio.messages.Part;
+import lombok.SneakyThrows;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * MinIO client with access to multipart upload API, so parts of one object
+ * can be uploaded in parallel, and to listing of single page of objects.
+ */
+class MinIOMultipartClient extends MinioAsyncClient {
+
+    /**
+     * Creates an object.
+     *
+     * @param client MinIO client to copy configuration from
+     */
+    MinIOMultipartClient(
+            final MinioAsyncClient client
+    ) {
+        super(client);
+    }
+
+    /**
+     * Starts multipart upload.
+     *
+     * @param bucket       bucket name
+     * @param object       object name
+     * @param contentType  content type of object
+     * @param userMetadata user metadata of object, null if there is none
+     * @return id of upload
+     */
+    @SneakyThrows
+    String createUpload(
+            final String bucket,
+            final String object,
+            final String contentType,
+            final Map<String, String> userMetadata
+    ) {
+        Multimap<String, String> headers = HashMultimap.create();
+        if (contentType != null) {
+            headers.put("Content-Type", contentType);
+        }
+        if (userMetadata != null) {
+            userMetadata.forEach(
+                    (key, value) -> headers.put("x-amz-meta-" + key, value)
+            );
+        }
+        return await(createMultipartUploadAsync(
+                bucket,
+                null,
+                object,
+                headers,
+                HashMultimap.create()
+        ))
+                .result()
+                .uploadId();
+    }
+
+    /**
+     * Uploads part of object asynchronously.
+     *
+     * @param bucket     bucket name
+     * @param object     object name
+     * @param uploadId   id of upload
+     * @param partNumber number of part, starting from 1
+     * @param data       content of part
+     * @return future of uploaded part
+     */
+    @SneakyThrows
+    CompletableFuture<Part> uploadPart(
+            final String bucket,
+            final String object,
+            final String uploadId,
+            final int partNumber,
+            final byte[] data
+    ) {
+        return uploadPartAsync(
+                bucket,
+                null,
+                object,
+                data,
+                data.length,
+                uploadId,
+                partNumber,
+                HashMultimap.create(),
+                HashMultimap.create()
+        )
+                .thenApply(response -> new Part(
+                        partNumber,
+                        response.etag()
+                ));
+    }
+
+    /**
+     * Completes multipart upload.
+     *
+     * @param bucket   bucket name
+     * @param object   object name
+     * @param uploadId id of upload
+     * @param parts    uploaded parts in order
+     */
+    @SneakyThrows
+    void completeUpload(
+            final String bucket,
+            final String object,
+            final String uploadId,
+            final Part[] parts
+    ) {
+        await(completeMultipartUploadAsync(
+                bucket,
+                null,
+                object,
+                uploadId,
+                parts,
+                HashMultimap.create(),
+                HashMultimap.create()
+        ));
+    }
+
+    /**
+     * Aborts multipart upload and removes uploaded parts.
+     *
+     * @param bucket   bucket name
+     * @param object   object name
+     * @param uploadId id of upload
+     */
+    @SneakyThrows
+    void abortUpload(
+            final String bucket,
+            final String object,
+            final String uploadId
+    ) {
+        await(abortMultipartUploadAsync(
+                bucket,
+                null,
+                object,
+                uploadId,
+                HashMultimap.create(),
+                HashMultimap.create()
+        ));
+    }
+
+    /**
+     * Lists one page of objects asynchronously.
+     *
+     * @param bucket     bucket name
+     * @param prefix     prefix of objects
+     * @param startAfter name of object to start listing after, null to start
+     *                   from beginning
+     * @param maxKeys    maximum number of objects
+     * @return future of listing result
+     */
+    @SneakyThrows
+    CompletableFuture<ListBucketResultV2> listPage(
+            final String bucket,
+            final String prefix,
+            final String startAfter,
+            final int maxKeys
+    ) {
+        return listObjectsV2Async(
+                bucket,
+                null,
+                null,
+                null,
+                startAfter,
+                maxKeys,
+                prefix,
+                null,
+                false,
+                true,
+                HashMultimap.create(),
+                HashMultimap.create()
+        )
+                .thenApply(ListObjectsV2Response::result);
+    }
+
+    /**
+     * Lists one page of names of objects directly in folder asynchronously.
+     * User metadata is not requested.
+     *
+     * @param bucket            bucket name
+     * @param folder            prefix of folder
+     * @param startAfter        name of object to start listing after, null
+     *                          to start from beginning
+     * @param continuationToken token of next page, null for first page
+     * @param maxKeys           maximum number of objects
+     * @return future of listing result
+     */
+    @SneakyThrows
+    CompletableFuture<ListBucketResultV2> listFolderPage(
+            final String bucket,
+            final String folder,
+            final String startAfter,
+            final String continuationToken,
+            final int maxKeys
+    ) {
+        return listObjectsV2Async(
+                bucket,
+                null,
+                "/",
+                null,
+                startAfter,
+                maxKeys,
+                folder,
+                continuationToken,
+                false,
+                false,
+                HashMultimap.create(),
+                HashMultimap.create()
+        )
+                .thenApply(ListObjectsV2Response::result);
+    }
+
+    /**
+     * Waits for future and rethrows its original exception.
+     *
+     * @param future future
+     * @param <T>    type of result
+     * @return result of future
+     */
+    @SneakyThrows
+    static <T> T await(
+            final CompletableFuture<T> future
+    ) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+    }
+
+}
@@ -1,43 +1,127 @@
 package io.github.ilyalisov.storage.service;
 
+import io.github.ilyalisov.storage.config.ConditionalResult;
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.FilePage;
 import io.github.ilyalisov.storage.config.Page;
+import io.github.ilyalisov.storage.config.SaveResult;
 import io.github.ilyalisov.storage.config.StorageFile;
+import io.github.ilyalisov.storage.config.StorageOptions;
+import io.github.ilyalisov.storage.metrics.StorageMetrics;
 import io.minio.BucketExistsArgs;
 import io.minio.GetObjectArgs;
 import io.minio.GetObjectResponse;
 import io.minio.ListObjectsArgs;
 import io.minio.MakeBucketArgs;
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
 import io.minio.RemoveObjectArgs;
+import io.minio.RemoveObjectsArgs;
 import io.minio.Result;
 import io.minio.StatObjectArgs;
 import io.minio.StatObjectResponse;
+import io.minio.UploadObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.ServerException;
+import io.minio.http.HttpUtils;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
 import io.minio.messages.Item;
+import io.minio.messages.ListBucketResultV2;
+import io.minio.messages.Part;
 import lombok.SneakyThrows;
+import okhttp3.OkHttpClient;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of StorageService based on MinIO.
  */
-public class MinIOStorageServiceImpl implements StorageService {
+public class MinIOStorageServiceImpl implements AsyncStorageService {
+
+    /**
+     * Timeout of HTTP connection, read and write in milliseconds.
+     */
+    private static final long HTTP_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Maximum number of objects deleted with one request.
+     */
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    /**
+     * Maximum number of objects in one page of listing.
+     */
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    /**
+     * HTTP status of response to conditional request of unchanged object.
+     */
+    private static final int NOT_MODIFIED = 304;
+
+    /**
+     * Key of user metadata with encoding of content.
+     */
+    private static final String ENCODING_METADATA = "content-encoding";
 
     /**
      * MinIO client.
      */
     private final MinioClient client;
 
+    /**
+     * Asynchronous MinIO client, also used for parallel multipart uploads.
+     */
+    private final MinIOMultipartClient asyncClient;
+
     /**
      * MinIO bucket.
      */
     private final String bucket;
 
+    /**
+     * Options of service.
+     */
+    private final StorageOptions options;
+
+    /**
+     * Executor of blocking work of asynchronous methods.
+     */
+    private final Executor executor;
+
+    /**
+     * Metrics of operations and requests.
+     */
+    private final StorageMetrics metrics;
+
     /**
      * Returns client.
      *
@@ -55,20 +139,78 @@ public class MinIOStorageServiceImpl implements StorageService {
      * @param secretKey secret key for MinIO
      * @param bucket    bucket to store files in
      */
-    @SneakyThrows
     public MinIOStorageServiceImpl(
             final String serverURL,
             final String accessKey,
             final String secretKey,
             final String bucket
     ) {
+        this(
+                serverURL,
+                accessKey,
+                secretKey,
+                bucket,
+                StorageOptions.defaults()
+        );
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param serverURL URL of server
+     * @param accessKey access key for MinIO
+     * @param secretKey secret key for MinIO
+     * @param bucket    bucket to store files in
+     * @param options   options of service
+     */
+    @SneakyThrows
+    public MinIOStorageServiceImpl(
+            final String serverURL,
+            final String accessKey,
+            final String secretKey,
+            final String bucket,
+            final StorageOptions options
+    ) {
+        if (options.getPartSize() < PutObjectArgs.MIN_MULTIPART_SIZE) {
+            throw new IllegalArgumentException(
+                    "Part size must be at least 5 MiB."
+            );
+        }
+        this.options = options;
+        this.metrics = options.getMetrics();
+        this.executor = Objects.requireNonNullElseGet(
+                options.getExecutor(),
+                () -> StorageExecutors.newExecutor(
+                        options.getExecutionMode()
+                )
+        );
+        OkHttpClient httpClient = HttpUtils.newDefaultHttpClient(
+                HTTP_TIMEOUT,
+                HTTP_TIMEOUT,
+                HTTP_TIMEOUT
+        );
+        httpClient.dispatcher().setMaxRequestsPerHost(Math.max(
+                httpClient.dispatcher().getMaxRequestsPerHost(),
+                options.getParallelParts()
+        ));
         this.client = MinioClient.builder()
                 .endpoint(serverURL)
                 .credentials(
                         accessKey,
                         secretKey
                 )
+                .httpClient(httpClient)
                 .build();
+        this.asyncClient = new MinIOMultipartClient(
+                MinioAsyncClient.builder()
+                        .endpoint(serverURL)
+                        .credentials(
+                                accessKey,
+                                secretKey
+                        )
+                        .httpClient(httpClient)
+                        .build()
+        );
         this.bucket = bucket;
         boolean found =
                 client.bucketExists(BucketExistsArgs.builder()
@@ -82,102 +224,666 @@ public class MinIOStorageServiceImpl implements StorageService {
     }
 
     @Override
-    @SneakyThrows
+    public StorageOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Returns size of parts, which are uploaded in parallel, and of the
+     * next part being read.
+     *
+     * @return size of buffer in bytes
+     */
+    @Override
+    public long getUploadBufferSize() {
+        return (options.getParallelParts() + 1L) * options.getPartSize();
+    }
+
+    @Override
     public Optional<StorageFile> find(
             final String fileName
     ) {
-        try (GetObjectResponse result = client.getObject(
-                GetObjectArgs.builder()
+        return Metered.call(metrics, "find", () -> {
+            try {
+                return Optional.of(file(fileName, openObject(fileName)));
+            } catch (Exception e) {
+                failed("find", e);
+                return Optional.empty();
+            }
+        });
+    }
+
+    @Override
+    @SneakyThrows
+    public Optional<StorageFile> find(
+            final String fileName,
+            final Path path
+    ) {
+        return find(fileName(path, fileName));
+    }
+
+    /**
+     * Finds object with If-None-Match precondition, so server answers with
+     * status 304 without content, if ETag of object is not changed.
+     *
+     * @param fileName name of file
+     * @param etag     version of cached copy, null if there is no copy
+     * @return result with file, if it was changed
+     */
+    @Override
+    public ConditionalResult findIfChanged(
+            final String fileName,
+            final String etag
+    ) {
+        return Metered.call(metrics, "findIfChanged", () -> {
+            try {
+                metrics.request("getObject");
+                GetObjectArgs.Builder args = GetObjectArgs.builder()
                         .bucket(bucket)
-                        .object(fileName)
-                        .build()
-        )) {
-            StatObjectResponse stat = client.statObject(
-                    StatObjectArgs.builder()
+                        .object(fileName);
+                if (etag != null) {
+                    args.notMatchETag(etag);
+                }
+                GetObjectResponse result = client.getObject(args.build());
+                return ConditionalResult.found(file(fileName, result));
+            } catch (ServerException e) {
+                if (e.statusCode() == NOT_MODIFIED) {
+                    return ConditionalResult.notModified();
+                }
+                failed("findIfChanged", e);
+                return ConditionalResult.notFound();
+            } catch (Exception e) {
+                failed("findIfChanged", e);
+                return ConditionalResult.notFound();
+            }
+        });
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final long offset,
+            final long length
+    ) {
+        return Metered.call(metrics, "findRange", () -> {
+            Ranges.check(offset, length);
+            if (length > 0) {
+                try {
+                    metrics.request("getObject");
+                    GetObjectResponse result = client.getObject(
+                            GetObjectArgs.builder()
+                                    .bucket(bucket)
+                                    .object(fileName)
+                                    .offset(offset)
+                                    .length(length)
+                                    .build()
+                    );
+                    return Optional.of(file(fileName, result));
+                } catch (ErrorResponseException e) {
+                    if (!"InvalidRange".equals(e.errorResponse().code())) {
+                        failed("findRange", e);
+                        return Optional.empty();
+                    }
+                } catch (Exception e) {
+                    failed("findRange", e);
+                    return Optional.empty();
+                }
+            }
+            try {
+                metrics.request("statObject");
+                StatObjectResponse stat = client.statObject(
+                        StatObjectArgs.builder()
+                                .bucket(bucket)
+                                .object(fileName)
+                                .build()
+                );
+                StorageFile file = new StorageFile(
+                        fileName,
+                        stat.contentType(),
+                        InputStream.nullInputStream()
+                );
+                file.setSize(0);
+                file.setEtag(etag(stat.etag()));
+                file.setLastModified(stat.lastModified().toInstant());
+                stat.userMetadata().entrySet().stream()
+                        .filter(e -> e.getKey()
+                                .equalsIgnoreCase(ENCODING_METADATA))
+                        .findFirst()
+                        .ifPresent(e -> file.setContentEncoding(e.getValue()));
+                return Optional.of(file);
+            } catch (Exception e) {
+                failed("findRange", e);
+                return Optional.empty();
+            }
+        });
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final Path path,
+            final long offset,
+            final long length
+    ) {
+        return find(fileName(path, fileName), offset, length);
+    }
+
+    @Override
+    public List<StorageFile> findAll(
+            final Path path,
+            final Page page
+    ) {
+        return Metered.call(metrics, "findAll", () -> {
+            metrics.request("listObjects");
+            Iterable<Result<Item>> response = client.listObjects(
+                    ListObjectsArgs.builder()
                             .bucket(bucket)
-                            .object(fileName)
+                            .prefix(path + "/")
+                            .recursive(true)
+                            .includeUserMetadata(true)
                             .build()
             );
-            StorageFile file = new StorageFile(
-                    fileName,
-                    stat.contentType(),
-                    new ByteArrayInputStream(result.readAllBytes())
+            List<Item> result = new ArrayList<>();
+            Iterator<Result<Item>> items = response.iterator();
+            int index = 0;
+            while (result.size() < page.getPageSize() && items.hasNext()) {
+                Item item = items.next().get();
+                if (index++ >= page.offset()) {
+                    result.add(item);
+                }
+            }
+            return files(result);
+        });
+    }
+
+    @Override
+    public FilePage findAll(
+            final Path path,
+            final CursorPage page
+    ) {
+        return MinIOMultipartClient.await(findAllAsync(path, page));
+    }
+
+    @Override
+    public boolean exists(
+            final String fileName
+    ) {
+        return Metered.call(
+                metrics,
+                "exists",
+                () -> stat(fileName, "exists")
+        );
+    }
+
+    @Override
+    public boolean exists(
+            final String fileName,
+            final Path path
+    ) {
+        return exists(fileName(path, fileName));
+    }
+
+    @Override
+    public Set<String> existsAll(
+            final Collection<String> fileNames
+    ) {
+        return Metered.call(metrics, "existsAll", () -> {
+            Set<String> found = new HashSet<>();
+            List<String> lookups = new ArrayList<>();
+            for (Map.Entry<String, NavigableSet<String>> group
+                    : ExistenceChecks.byFolder(fileNames).entrySet()) {
+                if (group.getValue().size()
+                        < ExistenceChecks.MIN_LISTED_NAMES) {
+                    lookups.addAll(group.getValue());
+                } else {
+                    found.addAll(listed(
+                            group.getKey(),
+                            group.getValue(),
+                            lookups
+                    ));
+                }
+            }
+            found.addAll(ExistenceChecks.lookup(
+                    lookups,
+                    options,
+                    fileName -> stat(fileName, "existsAll")
+            ));
+            return found;
+        });
+    }
+
+    @Override
+    public Path save(
+            final StorageFile file
+    ) {
+        return Metered.call(metrics, "save", () -> {
+            String fileName = fileName(file.getPath(), file.getFileName());
+            if (file.getSource() != null) {
+                metrics.request("uploadObject");
+                client.uploadObject(
+                        UploadObjectArgs.builder()
+                                .bucket(bucket)
+                                .object(fileName)
+                                .filename(
+                                        file.getSource().toString(),
+                                        options.getPartSize()
+                                )
+                                .contentType(file.getContentType())
+                                .userMetadata(userMetadata(file))
+                                .build()
+                );
+                metrics.bytesWritten(file.getSize());
+            } else if (file.getSize() >= 0) {
+                metrics.request("putObject");
+                client.putObject(
+                        PutObjectArgs.builder()
+                                .bucket(bucket)
+                                .stream(
+                                        written(file.getInputStream()),
+                                        file.getSize(),
+                                        -1
+                                )
+                                .object(fileName)
+                                .contentType(file.getContentType())
+                                .userMetadata(userMetadata(file))
+                                .build()
+                );
+            } else {
+                save(
+                        fileName,
+                        file,
+                        written(file.getInputStream())
+                );
+            }
+            return Path.of(fileName);
+        });
+    }
+
+    @Override
+    public void saveAll(
+            final Iterable<StorageFile> files,
+            final Consumer<SaveResult> results
+    ) {
+        Metered.run(
+                metrics,
+                "saveAll",
+                () -> new BulkSave(this, options, results)
+                        .run(files.iterator())
+        );
+    }
+
+    @Override
+    public void delete(
+            final String fileName
+    ) {
+        Metered.run(metrics, "delete", () -> {
+            metrics.request("removeObject");
+            client.removeObject(
+                    RemoveObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(fileName)
+                            .build()
             );
-            return Optional.of(file);
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+        });
     }
 
     @Override
     @SneakyThrows
-    public Optional<StorageFile> find(
+    public void delete(
             final String fileName,
             final Path path
     ) {
-        return find(fileName(path, fileName));
+        delete(fileName(path, fileName));
     }
 
     @Override
-    @SneakyThrows
-    public List<StorageFile> findAll(
+    public DeleteResult delete(
+            final Path path
+    ) {
+        return Metered.call(metrics, "deleteFolder", () -> {
+            metrics.request("listObjects");
+            Iterable<Result<Item>> response = client.listObjects(
+                    ListObjectsArgs.builder()
+                            .bucket(bucket)
+                            .prefix(path + "/")
+                            .recursive(true)
+                            .build()
+            );
+            AtomicLong deleted = new AtomicLong();
+            Queue<String> failed = new ConcurrentLinkedQueue<>();
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            try (BoundedExecutor executor = new BoundedExecutor(
+                    options.getExecutionMode(),
+                    options.getConcurrency()
+            )) {
+                List<String> batch = new ArrayList<>();
+                Iterator<Result<Item>> items = response.iterator();
+                while (items.hasNext()) {
+                    batch.add(items.next().get().objectName());
+                    if (batch.size() == DELETE_BATCH_SIZE || !items.hasNext()) {
+                        List<String> objects = batch;
+                        batches.add(executor.submit(() -> {
+                            delete(objects, deleted, failed);
+                            return null;
+                        }));
+                        batch = new ArrayList<>();
+                    }
+                }
+                batches.forEach(CompletableFuture::join);
+            }
+            return new DeleteResult(deleted.get(), new ArrayList<>(failed));
+        });
+    }
+
+    /**
+     * Deletes batch of objects with one request.
+     *
+     * @param objects names of objects
+     * @param deleted counter of deleted objects
+     * @param failed  names of objects failed to delete
+     */
+    private void delete(
+            final List<String> objects,
+            final AtomicLong deleted,
+            final Queue<String> failed
+    ) {
+        List<DeleteObject> deleteObjects = objects.stream()
+                .map(DeleteObject::new)
+                .collect(Collectors.toList());
+        try {
+            metrics.request("removeObjects");
+            Iterable<Result<DeleteError>> errors = client.removeObjects(
+                    RemoveObjectsArgs.builder()
+                            .bucket(bucket)
+                            .objects(deleteObjects)
+                            .build()
+            );
+            int errorCount = 0;
+            for (Result<DeleteError> error : errors) {
+                failed.add(error.get().objectName());
+                errorCount++;
+            }
+            deleted.addAndGet(objects.size() - errorCount);
+        } catch (Exception e) {
+            failed.addAll(objects);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Optional<StorageFile>> findAsync(
+            final String fileName
+    ) {
+        return Metered.async(metrics, "find", () -> {
+            try {
+                metrics.request("getObject");
+                CompletableFuture<GetObjectResponse> response = asyncClient
+                        .getObject(
+                                GetObjectArgs.builder()
+                                        .bucket(bucket)
+                                        .object(fileName)
+                                        .build()
+                        );
+                Function<GetObjectResponse, Optional<StorageFile>> mapper =
+                        result -> Optional.of(file(fileName, result));
+                if (options.isBufferContent()) {
+                    return response.thenApplyAsync(mapper, executor)
+                            .exceptionally(e -> {
+                                failed("find", e);
+                                return Optional.empty();
+                            });
+                }
+                return response.thenApply(mapper)
+                        .exceptionally(e -> {
+                            failed("find", e);
+                            return Optional.empty();
+                        });
+            } catch (Exception e) {
+                failed("find", e);
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<StorageFile>> findAllAsync(
             final Path path,
             final Page page
     ) {
-        Iterable<Result<Item>> response = client.listObjects(
-                ListObjectsArgs.builder()
-                        .bucket(bucket)
-                        .prefix(path.toString())
-                        .recursive(true)
-                        .build()
+        return CompletableFuture.supplyAsync(
+                () -> findAll(path, page),
+                executor
         );
-        List<Item> items = new ArrayList<>();
-        response.forEach(itemResult -> {
+    }
+
+    @Override
+    public CompletableFuture<FilePage> findAllAsync(
+            final Path path,
+            final CursorPage page
+    ) {
+        return Metered.async(metrics, "findAll", () -> {
+            metrics.request("listObjects");
+            return asyncClient.listPage(
+                            bucket,
+                            path + "/",
+                            page.getCursor(),
+                            page.getPageSize()
+                    )
+                    .thenCompose(result -> {
+                        boolean complete = result.contents().stream()
+                                .allMatch(item -> contentType(item) != null);
+                        if (complete) {
+                            return CompletableFuture.completedFuture(
+                                    page(result, page.getPageSize())
+                            );
+                        }
+                        return CompletableFuture.supplyAsync(
+                                () -> page(result, page.getPageSize()),
+                                executor
+                        );
+                    });
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> existsAsync(
+            final String fileName
+    ) {
+        return Metered.async(metrics, "exists", () -> {
             try {
-                items.add(itemResult.get());
+                metrics.request("statObject");
+                return asyncClient.statObject(
+                                StatObjectArgs.builder()
+                                        .bucket(bucket)
+                                        .object(fileName)
+                                        .build()
+                        )
+                        .thenApply(result -> true)
+                        .exceptionally(e -> {
+                            failed("exists", e);
+                            return false;
+                        });
             } catch (Exception e) {
-                e.printStackTrace();
+                failed("exists", e);
+                return CompletableFuture.completedFuture(false);
             }
         });
-        List<Item> pageItem = items.subList(
-                page.offset(),
-                Math.min(
-                        page.offset() + page.getPageSize(),
-                        items.size()
-                )
+    }
+
+    @Override
+    public CompletableFuture<Path> saveAsync(
+            final StorageFile file
+    ) {
+        if (file.getSize() < 0) {
+            return CompletableFuture.supplyAsync(
+                    () -> save(file),
+                    executor
+            );
+        }
+        return Metered.async(metrics, "save", () -> {
+            String fileName = fileName(file.getPath(), file.getFileName());
+            try {
+                metrics.request("putObject");
+                return asyncClient.putObject(
+                                PutObjectArgs.builder()
+                                        .bucket(bucket)
+                                        .stream(
+                                                written(file.getInputStream()),
+                                                file.getSize(),
+                                                -1
+                                        )
+                                        .object(fileName)
+                                        .contentType(file.getContentType())
+                                        .userMetadata(userMetadata(file))
+                                        .build()
+                        )
+                        .thenApply(result -> Path.of(fileName));
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(
+            final String fileName
+    ) {
+        return Metered.async(metrics, "delete", () -> {
+            try {
+                metrics.request("removeObject");
+                return asyncClient.removeObject(
+                        RemoveObjectArgs.builder()
+                                .bucket(bucket)
+                                .object(fileName)
+                                .build()
+                );
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<DeleteResult> deleteAsync(
+            final Path path
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> delete(path),
+                executor
         );
-        List<StorageFile> result = new ArrayList<>();
-        for (Item item : pageItem) {
-            InputStream objectStream = client.getObject(
-                    GetObjectArgs.builder()
+    }
+
+    /**
+     * Saves stream with unknown length. Stream is read by parts, if it is
+     * larger than one part, parts are uploaded in parallel with multipart
+     * upload, so memory usage is bounded by part size and number of parallel
+     * parts.
+     *
+     * @param fileName name of object
+     * @param file     saved file
+     * @param stream   stream with content
+     */
+    @SneakyThrows
+    private void save(
+            final String fileName,
+            final StorageFile file,
+            final InputStream stream
+    ) {
+        byte[] data = stream.readNBytes(options.getPartSize());
+        if (data.length < options.getPartSize()) {
+            metrics.request("putObject");
+            client.putObject(
+                    PutObjectArgs.builder()
                             .bucket(bucket)
-                            .object(item.objectName())
+                            .stream(
+                                    new ByteArrayInputStream(data),
+                                    data.length,
+                                    -1
+                            )
+                            .object(fileName)
+                            .contentType(file.getContentType())
+                            .userMetadata(userMetadata(file))
                             .build()
             );
-            String contentType = client.statObject(
-                            StatObjectArgs.builder()
-                                    .bucket(bucket)
-                                    .object(item.objectName())
-                                    .build()
-                    )
-                    .contentType();
-            StorageFile storageFile = new StorageFile(
-                    item.objectName(),
-                    path,
-                    contentType,
-                    objectStream
+            return;
+        }
+        metrics.request("createMultipartUpload");
+        String uploadId = asyncClient.createUpload(
+                bucket,
+                fileName,
+                file.getContentType(),
+                userMetadata(file)
+        );
+        try {
+            uploadParts(fileName, uploadId, data, stream);
+        } catch (Exception e) {
+            metrics.request("abortMultipartUpload");
+            asyncClient.abortUpload(bucket, fileName, uploadId);
+            throw e;
+        }
+    }
+
+    /**
+     * Uploads parts of stream, starting from already read first part.
+     *
+     * @param fileName name of object
+     * @param uploadId id of multipart upload
+     * @param first    first part
+     * @param stream   stream with rest of content
+     */
+    @SneakyThrows
+    private void uploadParts(
+            final String fileName,
+            final String uploadId,
+            final byte[] first,
+            final InputStream stream
+    ) {
+        Semaphore permits = new Semaphore(options.getParallelParts());
+        AtomicBoolean failed = new AtomicBoolean();
+        List<CompletableFuture<Part>> parts = new ArrayList<>();
+        byte[] data = first;
+        while (data.length > 0 && !failed.get()) {
+            permits.acquire();
+            metrics.request("uploadPart");
+            CompletableFuture<Part> part = asyncClient.uploadPart(
+                    bucket,
+                    fileName,
+                    uploadId,
+                    parts.size() + 1,
+                    data
             );
-            result.add(storageFile);
-            objectStream.close();
+            part.whenComplete((result, e) -> {
+                if (e != null) {
+                    failed.set(true);
+                }
+                permits.release();
+            });
+            parts.add(part);
+            if (data.length < options.getPartSize()) {
+                break;
+            }
+            data = stream.readNBytes(options.getPartSize());
+        }
+        Part[] uploaded = new Part[parts.size()];
+        for (int i = 0; i < uploaded.length; i++) {
+            uploaded[i] = MinIOMultipartClient.await(parts.get(i));
         }
-        return result;
+        metrics.request("completeMultipartUpload");
+        asyncClient.completeUpload(bucket, fileName, uploadId, uploaded);
     }
 
-    @Override
-    public boolean exists(
-            final String fileName
+    /**
+     * Checks if object exists with request of its metadata.
+     *
+     * @param fileName  name of object
+     * @param operation name of operation, which errors are recorded to
+     * @return true - if object exists, false - otherwise
+     */
+    private boolean stat(
+            final String fileName,
+            final String operation
     ) {
         try {
+            metrics.request("statObject");
             client.statObject(
                     StatObjectArgs.builder()
                             .bucket(bucket)
@@ -186,80 +892,346 @@ public class MinIOStorageServiceImpl implements StorageService {
             );
             return true;
         } catch (Exception e) {
+            failed(operation, e);
             return false;
         }
     }
 
-    @Override
-    public boolean exists(
-            final String fileName,
-            final Path path
+    /**
+     * Lists folder from first to last of names and returns names, which
+     * are found in listing. Listing stops after limited number of pages,
+     * names, which were not reached, are added to names to check with
+     * separate requests.
+     *
+     * @param folder    prefix of folder
+     * @param fileNames sorted names of files in folder
+     * @param lookups   names to check with separate requests
+     * @return names of existing files
+     */
+    private Set<String> listed(
+            final String folder,
+            final NavigableSet<String> fileNames,
+            final Collection<String> lookups
     ) {
-        return exists(fileName(path, fileName));
+        Set<String> found = new HashSet<>();
+        String token = null;
+        String lastListed = null;
+        int pages = ExistenceChecks.maxListedPages(
+                fileNames.size(),
+                LIST_PAGE_SIZE
+        );
+        for (int i = 0; i < pages; i++) {
+            metrics.request("listObjects");
+            ListBucketResultV2 result = MinIOMultipartClient.await(
+                    asyncClient.listFolderPage(
+                            bucket,
+                            folder,
+                            ExistenceChecks.before(fileNames.first()),
+                            token,
+                            LIST_PAGE_SIZE
+                    )
+            );
+            for (Item item : result.contents()) {
+                if (fileNames.contains(item.objectName())) {
+                    found.add(item.objectName());
+                }
+                if (item.objectName().compareTo(fileNames.last()) >= 0) {
+                    return found;
+                }
+                lastListed = item.objectName();
+            }
+            if (!result.isTruncated()) {
+                return found;
+            }
+            token = result.nextContinuationToken();
+        }
+        lookups.addAll(ExistenceChecks.remaining(fileNames, lastListed));
+        return found;
     }
 
-    @Override
+    /**
+     * Returns content of object. If content buffering is enabled, stream is
+     * read into memory and closed.
+     *
+     * @param stream stream with object content
+     * @return stream with content
+     */
     @SneakyThrows
-    public Path save(
-            final StorageFile file
+    private InputStream content(
+            final InputStream stream
     ) {
-        client.putObject(
-                PutObjectArgs.builder()
-                        .bucket(bucket)
-                        .stream(
-                                file.getInputStream(),
-                                file.getInputStream().available(),
-                                -1
-                        )
-                        .object(fileName(file.getPath(), file.getFileName()))
-                        .contentType(file.getContentType())
-                        .build()
+        InputStream content = new CountingInputStream(
+                stream,
+                metrics::bytesRead
         );
-        return Path.of(fileName(file.getPath(), file.getFileName()));
+        if (!options.isBufferContent()) {
+            return content;
+        }
+        try (content) {
+            return new ByteArrayInputStream(content.readAllBytes());
+        }
     }
 
-    @Override
-    @SneakyThrows
-    public void delete(
+    /**
+     * Returns stream, which reports bytes read from it as written to
+     * storage.
+     *
+     * @param stream stream with content of saved file
+     * @return stream with content
+     */
+    private InputStream written(
+            final InputStream stream
+    ) {
+        return new CountingInputStream(stream, metrics::bytesWritten);
+    }
+
+    /**
+     * Records error of request, which is not thrown to caller. Missing
+     * object is expected result and is not recorded.
+     *
+     * @param operation name of operation
+     * @param error     error of request
+     */
+    private void failed(
+            final String operation,
+            final Throwable error
+    ) {
+        Throwable cause = error;
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof ErrorResponseException
+                && "NoSuchKey".equals(
+                ((ErrorResponseException) cause).errorResponse().code()
+        )) {
+            return;
+        }
+        metrics.error(operation, cause);
+    }
+
+    /**
+     * Creates page of files from listing result.
+     *
+     * @param result   listing result
+     * @param pageSize size of page
+     * @return page of files
+     */
+    private FilePage page(
+            final ListBucketResultV2 result,
+            final int pageSize
+    ) {
+        List<StorageFile> files = files(result.contents());
+        CursorPage next = null;
+        if (result.isTruncated() && !result.contents().isEmpty()) {
+            next = new CursorPage(
+                    result.contents()
+                            .get(result.contents().size() - 1)
+                            .objectName(),
+                    pageSize
+            );
+        }
+        return new FilePage(files, next);
+    }
+
+    /**
+     * Creates files from listed objects. Content types, which are missing
+     * in listing on S3 servers without metadata listing extension, are
+     * fetched concurrently.
+     *
+     * @param items listed objects
+     * @return files
+     */
+    private List<StorageFile> files(
+            final List<? extends Item> items
+    ) {
+        List<StorageFile> files = items.stream()
+                .map(this::file)
+                .collect(Collectors.toList());
+        if (files.stream().allMatch(f -> f.getContentType() != null)) {
+            return files;
+        }
+        try (BoundedExecutor statExecutor = new BoundedExecutor(
+                options.getExecutionMode(),
+                options.getConcurrency()
+        )) {
+            List<CompletableFuture<Void>> stats = new ArrayList<>();
+            for (StorageFile file : files) {
+                if (file.getContentType() == null) {
+                    stats.add(statExecutor.submit(() -> {
+                        file.setContentType(contentType(
+                                fileName(file.getPath(), file.getFileName())
+                        ));
+                        return null;
+                    }));
+                }
+            }
+            stats.forEach(CompletableFuture::join);
+        }
+        return files;
+    }
+
+    /**
+     * Fetches content type of object.
+     *
+     * @param fileName name of object
+     * @return content type or null if object can not be found
+     */
+    private String contentType(
             final String fileName
     ) {
-        client.removeObject(
-                RemoveObjectArgs.builder()
-                        .bucket(bucket)
-                        .object(fileName)
-                        .build()
+        try {
+            metrics.request("statObject");
+            return client.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(fileName)
+                            .build()
+            ).contentType();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates file from listed object. Content of file is opened only when
+     * it is read.
+     *
+     * @param item listed object
+     * @return file
+     */
+    private StorageFile file(
+            final Item item
+    ) {
+        StorageFile file = new StorageFile(
+                item.objectName(),
+                null,
+                contentType(item),
+                item.size(),
+                () -> content(openObject(item.objectName()))
         );
+        file.setEtag(etag(item.etag()));
+        file.setLastModified(item.lastModified().toInstant());
+        file.setContentEncoding(metadata(item, ENCODING_METADATA));
+        return file;
     }
 
-    @Override
-    @SneakyThrows
-    public void delete(
+    /**
+     * Returns user metadata of saved file.
+     *
+     * @param file saved file
+     * @return user metadata or null if file has none
+     */
+    private static Map<String, String> userMetadata(
+            final StorageFile file
+    ) {
+        if (file.getContentEncoding() == null) {
+            return null;
+        }
+        return Map.of(ENCODING_METADATA, file.getContentEncoding());
+    }
+
+    /**
+     * Creates found file from response with object content. Size, version
+     * and time of modification are taken from headers of response.
+     *
+     * @param fileName name of object
+     * @param result   response with object content
+     * @return file
+     */
+    private StorageFile file(
             final String fileName,
-            final Path path
+            final GetObjectResponse result
     ) {
-        delete(fileName(path, fileName));
+        StorageFile file = new StorageFile(
+                fileName,
+                result.headers().get("Content-Type"),
+                content(result)
+        );
+        String size = result.headers().get("Content-Length");
+        if (size != null) {
+            file.setSize(Long.parseLong(size));
+        }
+        file.setEtag(etag(result.headers().get("ETag")));
+        file.setContentEncoding(result.headers().get(
+                "x-amz-meta-" + ENCODING_METADATA
+        ));
+        String modified = result.headers().get("Last-Modified");
+        if (modified != null) {
+            file.setLastModified(ZonedDateTime.parse(
+                    modified,
+                    DateTimeFormatter.RFC_1123_DATE_TIME
+            ).toInstant());
+        }
+        return file;
     }
 
-    @Override
+    /**
+     * Removes quotes from ETag of object.
+     *
+     * @param etag ETag from response
+     * @return ETag without quotes or null if it is missing
+     */
+    private static String etag(
+            final String etag
+    ) {
+        if (etag == null) {
+            return null;
+        }
+        return etag.replace("\"", "");
+    }
+
+    /**
+     * Opens object for reading.
+     *
+     * @param fileName name of object
+     * @return response with object content
+     */
     @SneakyThrows
-    public void delete(
-            final Path path
+    private GetObjectResponse openObject(
+            final String fileName
     ) {
-        Iterable<Result<Item>> response = client.listObjects(
-                ListObjectsArgs.builder()
+        metrics.request("getObject");
+        return client.getObject(
+                GetObjectArgs.builder()
                         .bucket(bucket)
-                        .prefix(path.toString())
-                        .recursive(true)
+                        .object(fileName)
                         .build()
         );
-        for (Result<Item> item : response) {
-            client.removeObject(
-                    RemoveObjectArgs.builder()
-                            .bucket(bucket)
-                            .object(item.get().objectName())
-                            .build()
-            );
+    }
+
+    /**
+     * Returns content type of listed object from its user metadata.
+     *
+     * @param item listed object
+     * @return content type or null if it is not available
+     */
+    private String contentType(
+            final Item item
+    ) {
+        return metadata(item, "content-type");
+    }
+
+    /**
+     * Returns value of metadata of listed object. Custom metadata is
+     * listed with "X-Amz-Meta-" prefix, which is ignored.
+     *
+     * @param item listed object
+     * @param key  key of metadata
+     * @return value or null if it is not available
+     */
+    private static String metadata(
+            final Item item,
+            final String key
+    ) {
+        if (item.userMetadata() == null) {
+            return null;
         }
+        return item.userMetadata().entrySet().stream()
+                .filter(e -> e.getKey().equalsIgnoreCase(key)
+                        || e.getKey().equalsIgnoreCase("x-amz-meta-" + key))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(null);
     }
 
 }
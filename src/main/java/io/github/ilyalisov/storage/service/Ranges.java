@@ -0,0 +1,44 @@
+package io.github.ilyalisov.storage.service;
+
+/**
+ * Utility methods of ranged reads.
+ */
+final class Ranges {
+
+    private Ranges() {
+    }
+
+    /**
+     * Checks that range is valid.
+     *
+     * @param offset offset of first byte of range
+     * @param length number of bytes in range
+     */
+    static void check(
+            final long offset,
+            final long length
+    ) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException(
+                    "Offset and length must not be negative."
+            );
+        }
+    }
+
+    /**
+     * Returns number of bytes of range within file.
+     *
+     * @param size   size of file
+     * @param offset offset of first byte of range
+     * @param length number of bytes in range
+     * @return number of bytes
+     */
+    static long length(
+            final long size,
+            final long offset,
+            final long length
+    ) {
+        return Math.max(0, Math.min(length, size - offset));
+    }
+
+}
@@ -0,0 +1,114 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.ExecutionMode;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory of executors for blocking storage work.
+ * Library is built with Java 17, so virtual threads are created through
+ * reflection when JDK provides them.
+ */
+final class StorageExecutors {
+
+    /**
+     * Counter of created threads, used in thread names.
+     */
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    /**
+     * Factory method of virtual thread executor, null if it is not
+     * available.
+     */
+    private static final Method VIRTUAL_EXECUTOR = virtualExecutor();
+
+    private StorageExecutors() {
+    }
+
+    /**
+     * Checks if virtual threads are supported by JDK.
+     *
+     * @return true - if supported, false - otherwise
+     */
+    static boolean virtualThreadsSupported() {
+        return VIRTUAL_EXECUTOR != null;
+    }
+
+    /**
+     * Creates executor without limit of threads. Platform threads are
+     * daemon threads, so they do not prevent application from exiting.
+     *
+     * @param mode execution mode
+     * @return executor
+     */
+    static ExecutorService newExecutor(
+            final ExecutionMode mode
+    ) {
+        if (useVirtualThreads(mode)) {
+            return newVirtualExecutor();
+        }
+        return Executors.newCachedThreadPool(threadFactory());
+    }
+
+    /**
+     * Creates executor for given number of concurrent tasks. Virtual thread
+     * executor is not limited, concurrency must be bounded by caller.
+     *
+     * @param mode execution mode
+     * @param size number of concurrent tasks
+     * @return executor
+     */
+    static ExecutorService newExecutor(
+            final ExecutionMode mode,
+            final int size
+    ) {
+        if (useVirtualThreads(mode)) {
+            return newVirtualExecutor();
+        }
+        return Executors.newFixedThreadPool(size, threadFactory());
+    }
+
+    private static boolean useVirtualThreads(
+            final ExecutionMode mode
+    ) {
+        return mode == ExecutionMode.VIRTUAL_THREADS
+                && virtualThreadsSupported();
+    }
+
+    private static ExecutorService newVirtualExecutor() {
+        try {
+            return (ExecutorService) VIRTUAL_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Method virtualExecutor() {
+        try {
+            Method method = Executors.class.getMethod(
+                    "newVirtualThreadPerTaskExecutor"
+            );
+            ((ExecutorService) method.invoke(null)).shutdown();
+            return method;
+        } catch (ReflectiveOperationException
+                 | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        return runnable -> {
+            Thread thread = new Thread(
+                    runnable,
+                    "storage-" + THREADS.incrementAndGet()
+            );
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
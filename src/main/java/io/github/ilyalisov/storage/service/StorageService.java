@@ -1,12 +1,34 @@
 package io.github.ilyalisov.storage.service;
 
 
+import io.github.ilyalisov.storage.config.ConditionalResult;
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.FilePage;
 import io.github.ilyalisov.storage.config.Page;
+import io.github.ilyalisov.storage.config.SaveResult;
 import io.github.ilyalisov.storage.config.StorageFile;
+import io.github.ilyalisov.storage.config.StorageOptions;
+import lombok.SneakyThrows;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * StorageService interface.
@@ -35,6 +57,221 @@ public interface StorageService {
             Path path
     );
 
+    /**
+     * Finds range of bytes of file by its name. Only requested range is
+     * transferred from storage. Range, which ends after end of file, is cut
+     * at the end of file.
+     *
+     * @param fileName name of file
+     * @param offset   offset of first byte of range
+     * @param length   number of bytes in range
+     * @return optional of file with content of range
+     */
+    Optional<StorageFile> find(
+            String fileName,
+            long offset,
+            long length
+    );
+
+    /**
+     * Finds range of bytes of file by its name. Only requested range is
+     * transferred from storage. Range, which ends after end of file, is cut
+     * at the end of file.
+     *
+     * @param fileName name of file
+     * @param path     path to file
+     * @param offset   offset of first byte of range
+     * @param length   number of bytes in range
+     * @return optional of file with content of range
+     */
+    Optional<StorageFile> find(
+            String fileName,
+            Path path,
+            long offset,
+            long length
+    );
+
+    /**
+     * Finds file by its name, if it was changed since version known to
+     * caller. Implementations check version with storage before content is
+     * transferred, so cached copy is confirmed without download.
+     *
+     * @param fileName name of file
+     * @param etag     version of cached copy, null if there is no copy
+     * @return result with file, if it was changed
+     */
+    @SneakyThrows
+    default ConditionalResult findIfChanged(
+            final String fileName,
+            final String etag
+    ) {
+        Optional<StorageFile> found = find(fileName);
+        if (found.isEmpty()) {
+            return ConditionalResult.notFound();
+        }
+        StorageFile file = found.get();
+        if (etag != null && etag.equals(file.getEtag())) {
+            file.close();
+            return ConditionalResult.notModified();
+        }
+        return ConditionalResult.found(file);
+    }
+
+    /**
+     * Finds file by its name, if it was changed since version known to
+     * caller.
+     *
+     * @param fileName name of file
+     * @param path     path to file
+     * @param etag     version of cached copy, null if there is no copy
+     * @return result with file, if it was changed
+     */
+    default ConditionalResult findIfChanged(
+            final String fileName,
+            final Path path,
+            final String etag
+    ) {
+        return findIfChanged(fileName(path, fileName), etag);
+    }
+
+    /**
+     * Finds file by its name and writes its content to channel. Content is
+     * copied through reused buffer, so memory use does not depend on size
+     * of file. Channel is not closed.
+     *
+     * @param fileName name of file
+     * @param target   channel to write content to
+     * @return optional of number of written bytes, empty if file does not
+     * exist
+     */
+    @SneakyThrows
+    default OptionalLong findTo(
+            final String fileName,
+            final WritableByteChannel target
+    ) {
+        Optional<StorageFile> file = find(fileName);
+        if (file.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        try (StorageFile found = file.get();
+             InputStream content = found.getInputStream()) {
+            return OptionalLong.of(Transfers.copy(content, target));
+        }
+    }
+
+    /**
+     * Finds file by its name and writes its content to channel. Content is
+     * copied through reused buffer, so memory use does not depend on size
+     * of file. Channel is not closed.
+     *
+     * @param fileName name of file
+     * @param path     path to file
+     * @param target   channel to write content to
+     * @return optional of number of written bytes, empty if file does not
+     * exist
+     */
+    default OptionalLong findTo(
+            final String fileName,
+            final Path path,
+            final WritableByteChannel target
+    ) {
+        return findTo(fileName(path, fileName), target);
+    }
+
+    /**
+     * Finds file by its name and writes its content to stream. Content is
+     * copied through reused buffer, so memory use does not depend on size
+     * of file. Stream is not closed.
+     *
+     * @param fileName name of file
+     * @param target   stream to write content to
+     * @return optional of number of written bytes, empty if file does not
+     * exist
+     */
+    @SneakyThrows
+    default OptionalLong findTo(
+            final String fileName,
+            final OutputStream target
+    ) {
+        Optional<StorageFile> file = find(fileName);
+        if (file.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        try (StorageFile found = file.get();
+             InputStream content = found.getInputStream()) {
+            return OptionalLong.of(Transfers.copy(content, target));
+        }
+    }
+
+    /**
+     * Finds file by its name and writes its content to stream. Content is
+     * copied through reused buffer, so memory use does not depend on size
+     * of file. Stream is not closed.
+     *
+     * @param fileName name of file
+     * @param path     path to file
+     * @param target   stream to write content to
+     * @return optional of number of written bytes, empty if file does not
+     * exist
+     */
+    default OptionalLong findTo(
+            final String fileName,
+            final Path path,
+            final OutputStream target
+    ) {
+        return findTo(fileName(path, fileName), target);
+    }
+
+    /**
+     * Finds file by its name and writes its content to local file, which
+     * is created or replaced. Local file is not created if file does not
+     * exist.
+     *
+     * @param fileName name of file
+     * @param target   path to local file
+     * @return optional of number of written bytes, empty if file does not
+     * exist
+     */
+    @SneakyThrows
+    default OptionalLong findTo(
+            final String fileName,
+            final Path target
+    ) {
+        Optional<StorageFile> file = find(fileName);
+        if (file.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        try (StorageFile found = file.get();
+             InputStream content = found.getInputStream();
+             FileChannel channel = FileChannel.open(
+                     target,
+                     StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING
+             )) {
+            return OptionalLong.of(Transfers.copy(content, channel));
+        }
+    }
+
+    /**
+     * Finds file by its name and writes its content to local file, which
+     * is created or replaced. Local file is not created if file does not
+     * exist.
+     *
+     * @param fileName name of file
+     * @param path     path to file
+     * @param target   path to local file
+     * @return optional of number of written bytes, empty if file does not
+     * exist
+     */
+    default OptionalLong findTo(
+            final String fileName,
+            final Path path,
+            final Path target
+    ) {
+        return findTo(fileName(path, fileName), target);
+    }
+
     /**
      * Finds all files in folder.
      *
@@ -47,6 +284,71 @@ public interface StorageService {
             Page page
     );
 
+    /**
+     * Finds page of files in folder. Each page is fetched with one listing
+     * request, next page is fetched with cursor of previous one.
+     *
+     * @param path path to folder
+     * @param page cursor-based pagination of results
+     * @return page of files
+     */
+    FilePage findAll(
+            Path path,
+            CursorPage page
+    );
+
+    /**
+     * Returns lazy stream of files in folder. Pages of listing are fetched
+     * with cursor only when stream reaches their files, so only one page is
+     * kept in memory, no matter how large folder is.
+     *
+     * @param path     path to folder
+     * @param pageSize number of files fetched with one listing request
+     * @return stream of files
+     */
+    default Stream<StorageFile> streamAll(
+            final Path path,
+            final int pageSize
+    ) {
+        FilePage start = new FilePage(List.of(), new CursorPage(pageSize));
+        return Stream.iterate(
+                        start,
+                        Objects::nonNull,
+                        page -> page.hasNext()
+                                ? findAll(path, page.getNext())
+                                : null
+                )
+                .flatMap(page -> page.getFiles().stream());
+    }
+
+    /**
+     * Returns publisher of files in folder. Pages of listing are fetched
+     * with cursor only when subscriber requests more files than were
+     * fetched, so listing of large folder runs with bounded memory. Pages
+     * are fetched on thread, which requests files.
+     *
+     * @param path     path to folder
+     * @param pageSize number of files fetched with one listing request
+     * @return publisher of files
+     */
+    default Flow.Publisher<StorageFile> publishAll(
+            final Path path,
+            final int pageSize
+    ) {
+        return new ListingPublisher(
+                page -> {
+                    try {
+                        return CompletableFuture.completedFuture(
+                                findAll(path, page)
+                        );
+                    } catch (Exception e) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                },
+                new CursorPage(pageSize)
+        );
+    }
+
     /**
      * Checks if file with name exists.
      *
@@ -69,6 +371,22 @@ public interface StorageService {
             Path path
     );
 
+    /**
+     * Checks which of files exist. Implementations check names, which share
+     * folder, with listing of folder and other names with concurrent
+     * requests, so it takes fewer round trips than separate checks.
+     *
+     * @param fileNames names of files
+     * @return names of existing files
+     */
+    default Set<String> existsAll(
+            final Collection<String> fileNames
+    ) {
+        return fileNames.stream()
+                .filter(this::exists)
+                .collect(Collectors.toSet());
+    }
+
     /**
      * Saves file to storage.
      *
@@ -79,6 +397,87 @@ public interface StorageService {
             StorageFile file
     );
 
+    /**
+     * Returns options, which limit bulk operations of service.
+     *
+     * @return options of service
+     */
+    default StorageOptions getOptions() {
+        return StorageOptions.defaults();
+    }
+
+    /**
+     * Returns number of bytes, which service holds in memory while it saves
+     * file of unknown size. Bulk save counts it towards limit of bytes in
+     * flight.
+     *
+     * @return size of buffer in bytes
+     */
+    default long getUploadBufferSize() {
+        return getOptions().getPartSize();
+    }
+
+    /**
+     * Saves files concurrently. Number of parallel uploads and their total
+     * size are limited by options of service, next file is taken from
+     * source only when it fits the limits, so source may be larger than
+     * memory. Each file is closed after it is saved. Results are passed to
+     * consumer one at a time, as files are saved.
+     *
+     * @param files   files to be saved
+     * @param results consumer of results of files
+     */
+    default void saveAll(
+            final Iterable<StorageFile> files,
+            final Consumer<SaveResult> results
+    ) {
+        new BulkSave(this, getOptions(), results)
+                .run(files.iterator());
+    }
+
+    /**
+     * Saves files of stream concurrently, stream is consumed as uploads
+     * complete.
+     *
+     * @param files   files to be saved
+     * @param results consumer of results of files
+     * @see #saveAll(Iterable, Consumer)
+     */
+    default void saveAll(
+            final Stream<StorageFile> files,
+            final Consumer<SaveResult> results
+    ) {
+        saveAll(files::iterator, results);
+    }
+
+    /**
+     * Saves files concurrently and returns results of all files.
+     *
+     * @param files files to be saved
+     * @return results of files in order of completion
+     * @see #saveAll(Iterable, Consumer)
+     */
+    default List<SaveResult> saveAll(
+            final Iterable<StorageFile> files
+    ) {
+        List<SaveResult> results = new ArrayList<>();
+        saveAll(files, results::add);
+        return results;
+    }
+
+    /**
+     * Saves files of stream concurrently and returns results of all files.
+     *
+     * @param files files to be saved
+     * @return results of files in order of completion
+     * @see #saveAll(Iterable, Consumer)
+     */
+    default List<SaveResult> saveAll(
+            final Stream<StorageFile> files
+    ) {
+        return saveAll(files::iterator);
+    }
+
     /**
      * Deletes file from storage.
      *
@@ -100,11 +499,13 @@ public interface StorageService {
     );
 
     /**
-     * Deletes all folder from storage.
+     * Deletes all folder from storage. Files are deleted in batches, which
+     * are sent concurrently.
      *
      * @param path path to folder to be deleted
+     * @return number of deleted files and names of files failed to delete
      */
-    void delete(
+    DeleteResult delete(
             Path path
     );
 
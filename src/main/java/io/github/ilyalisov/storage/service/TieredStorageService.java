@@ -0,0 +1,593 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.StorageFile;
+
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StorageService decorator, which combines durable storage with fast tier,
+ * like InMemoryStorageServiceImpl or LocalFileStorageServiceImpl. Files,
+ * which are found often, are promoted to fast tier and are read from it
+ * afterwards. When total size of promoted files exceeds limit, least
+ * recently used files are demoted, if they were accessed less often than
+ * promoted file, otherwise file is not promoted. Frequency of access is
+ * estimated with compact sketch, so it does not grow with number of files.
+ * <p>
+ * Files are saved and deleted in durable storage, promoted copies are
+ * removed from fast tier at the same time. Changes made directly in durable
+ * storage are not visible until file is demoted.
+ */
+public class TieredStorageService extends DelegatingStorageService {
+
+    /**
+     * Default number of recent accesses, after which file is promoted.
+     */
+    private static final int DEFAULT_MIN_ACCESSES = 2;
+
+    /**
+     * Expected number of frequently used files, which sketch of access
+     * frequency is sized for.
+     */
+    private static final long SKETCH_KEYS = 64 * 1024;
+
+    /**
+     * Fast tier.
+     */
+    private final StorageService fastTier;
+
+    /**
+     * Maximum total size of promoted files in bytes.
+     */
+    private final long maxBytes;
+
+    /**
+     * Number of recent accesses, after which file is promoted.
+     */
+    private final int minAccesses;
+
+    /**
+     * Recent frequency of access of files.
+     */
+    private final FrequencySketch frequencies =
+            new FrequencySketch(SKETCH_KEYS);
+
+    /**
+     * Sizes of promoted files by name in access order.
+     */
+    private final LinkedHashMap<String, Long> promoted =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Names of files, which are being promoted.
+     */
+    private final Set<String> promoting = new HashSet<>();
+
+    /**
+     * Total size of promoted files and files being promoted in bytes.
+     */
+    private long bytes;
+
+    /**
+     * Invalidations of files being fetched, files invalidated while they
+     * are fetched are not promoted.
+     */
+    private final Invalidations invalidations = new Invalidations();
+
+    /**
+     * Number of reads from fast tier.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of reads from durable storage.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Number of promoted files.
+     */
+    private final LongAdder promotions = new LongAdder();
+
+    /**
+     * Number of demoted files.
+     */
+    private final LongAdder demotions = new LongAdder();
+
+    /**
+     * Creates an object, which promotes files after second recent access.
+     *
+     * @param delegate durable storage
+     * @param fastTier fast tier
+     * @param maxBytes maximum total size of promoted files in bytes
+     */
+    public TieredStorageService(
+            final StorageService delegate,
+            final StorageService fastTier,
+            final long maxBytes
+    ) {
+        this(delegate, fastTier, maxBytes, DEFAULT_MIN_ACCESSES);
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param delegate    durable storage
+     * @param fastTier    fast tier
+     * @param maxBytes    maximum total size of promoted files in bytes
+     * @param minAccesses number of recent accesses, after which file is
+     *                    promoted
+     */
+    public TieredStorageService(
+            final StorageService delegate,
+            final StorageService fastTier,
+            final long maxBytes,
+            final int minAccesses
+    ) {
+        super(delegate);
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException(
+                    "Tier size must be positive number."
+            );
+        }
+        if (minAccesses <= 0) {
+            throw new IllegalArgumentException(
+                    "Number of accesses must be positive number."
+            );
+        }
+        this.fastTier = fastTier;
+        this.maxBytes = maxBytes;
+        this.minAccesses = minAccesses;
+    }
+
+    /**
+     * Returns number of reads from fast tier.
+     *
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns number of reads from durable storage.
+     *
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns number of promoted files.
+     *
+     * @return number of promotions
+     */
+    public long getPromotions() {
+        return promotions.sum();
+    }
+
+    /**
+     * Returns number of demoted files.
+     *
+     * @return number of demotions
+     */
+    public long getDemotions() {
+        return demotions.sum();
+    }
+
+    /**
+     * Returns total size of promoted files.
+     *
+     * @return size in bytes
+     */
+    public synchronized long getPromotedBytes() {
+        return bytes;
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName
+    ) {
+        frequencies.increment(fileName);
+        if (isPromoted(fileName)) {
+            Optional<StorageFile> found = fastTier.find(fileName);
+            if (found.isPresent()) {
+                hits.increment();
+                return found;
+            }
+            invalidate(fileName);
+        }
+        misses.increment();
+        long start = begin(fileName);
+        try {
+            Optional<StorageFile> found = getDelegate().find(fileName);
+            if (found.isEmpty()) {
+                return found;
+            }
+            StorageFile file = found.get();
+            if (file.getSize() < 0 || file.getSize() > maxBytes
+                    || frequencies.frequency(fileName) < minAccesses) {
+                return found;
+            }
+            return promote(fileName, file, start);
+        } finally {
+            end(fileName);
+        }
+    }
+
+    /**
+     * Finds range of bytes of file. Ranges of promoted files are read from
+     * fast tier, other ranges are read from durable storage and do not
+     * promote file.
+     *
+     * @param fileName name of file
+     * @param offset   offset of first byte of range
+     * @param length   number of bytes in range
+     * @return optional of file with content of range
+     */
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final long offset,
+            final long length
+    ) {
+        frequencies.increment(fileName);
+        if (isPromoted(fileName)) {
+            Optional<StorageFile> found = fastTier.find(
+                    fileName,
+                    offset,
+                    length
+            );
+            if (found.isPresent()) {
+                hits.increment();
+                return found;
+            }
+            invalidate(fileName);
+        }
+        misses.increment();
+        return getDelegate().find(fileName, offset, length);
+    }
+
+    /**
+     * Writes content of file to channel. Promoted files are read from fast
+     * tier, other files are read from durable storage and do not promote
+     * file.
+     *
+     * @param fileName name of file
+     * @param target   channel to write content to
+     * @return optional of number of written bytes, empty if file does not
+     * exist
+     */
+    @Override
+    public OptionalLong findTo(
+            final String fileName,
+            final WritableByteChannel target
+    ) {
+        frequencies.increment(fileName);
+        if (isPromoted(fileName)) {
+            OptionalLong written = fastTier.findTo(fileName, target);
+            if (written.isPresent()) {
+                hits.increment();
+                return written;
+            }
+            invalidate(fileName);
+        }
+        misses.increment();
+        return getDelegate().findTo(fileName, target);
+    }
+
+    @Override
+    public OptionalLong findTo(
+            final String fileName,
+            final OutputStream target
+    ) {
+        frequencies.increment(fileName);
+        if (isPromoted(fileName)) {
+            OptionalLong written = fastTier.findTo(fileName, target);
+            if (written.isPresent()) {
+                hits.increment();
+                return written;
+            }
+            invalidate(fileName);
+        }
+        misses.increment();
+        return getDelegate().findTo(fileName, target);
+    }
+
+    @Override
+    public OptionalLong findTo(
+            final String fileName,
+            final Path target
+    ) {
+        frequencies.increment(fileName);
+        if (isPromoted(fileName)) {
+            OptionalLong written = fastTier.findTo(fileName, target);
+            if (written.isPresent()) {
+                hits.increment();
+                return written;
+            }
+            invalidate(fileName);
+        }
+        misses.increment();
+        return getDelegate().findTo(fileName, target);
+    }
+
+    @Override
+    public boolean exists(
+            final String fileName
+    ) {
+        if (isPromoted(fileName)) {
+            return true;
+        }
+        return getDelegate().exists(fileName);
+    }
+
+    @Override
+    public Path save(
+            final StorageFile file
+    ) {
+        String fileName = fileName(file.getPath(), file.getFileName());
+        invalidate(fileName);
+        try {
+            return getDelegate().save(file);
+        } finally {
+            invalidate(fileName);
+        }
+    }
+
+    @Override
+    public void delete(
+            final String fileName
+    ) {
+        invalidate(fileName);
+        try {
+            getDelegate().delete(fileName);
+        } finally {
+            invalidate(fileName);
+        }
+    }
+
+    @Override
+    public DeleteResult delete(
+            final Path path
+    ) {
+        invalidateFolder(path);
+        try {
+            return getDelegate().delete(path);
+        } finally {
+            invalidateFolder(path);
+        }
+    }
+
+    /**
+     * Checks if file is promoted and marks it as recently used.
+     *
+     * @param fileName name of file
+     * @return true - if file is promoted, false - otherwise
+     */
+    private synchronized boolean isPromoted(
+            final String fileName
+    ) {
+        return promoted.get(fileName) != null;
+    }
+
+    /**
+     * Copies file found in durable storage to fast tier and opens promoted
+     * copy. File is not promoted, if it does not fit limit without demotion
+     * of files accessed at least as often, or if it was invalidated while
+     * it was fetched. If fast tier fails, file is read from durable storage
+     * again, so failed promotion does not fail the read.
+     *
+     * @param fileName name of file
+     * @param found    file found in durable storage
+     * @param start    time of start of fetch
+     * @return found file
+     */
+    private Optional<StorageFile> promote(
+            final String fileName,
+            final StorageFile found,
+            final long start
+    ) {
+        List<String> demoted = reserve(fileName, found.getSize());
+        if (demoted == null) {
+            return Optional.of(found);
+        }
+        demoted.forEach(this::demote);
+        boolean saved = false;
+        try (StorageFile source = found) {
+            fastTier.save(source);
+            saved = true;
+        } catch (Exception ignored) {
+            // fast tier holds only copies, file is read from durable storage
+        } finally {
+            if (!commit(fileName, found.getSize(), start, saved)) {
+                discard(fileName);
+            }
+        }
+        if (saved) {
+            try {
+                Optional<StorageFile> promotedFile = fastTier.find(fileName);
+                if (promotedFile.isPresent()) {
+                    return promotedFile;
+                }
+            } catch (Exception ignored) {
+                // file is read from durable storage
+            }
+            invalidate(fileName);
+        }
+        return getDelegate().find(fileName);
+    }
+
+    /**
+     * Reserves space for promoted file. Least recently used files are
+     * chosen for demotion until file fits the limit, file is rejected if
+     * any of them was accessed at least as often as it.
+     *
+     * @param fileName name of file
+     * @param size     size of file in bytes
+     * @return names of files to demote, null if file is rejected
+     */
+    private synchronized List<String> reserve(
+            final String fileName,
+            final long size
+    ) {
+        if (promoted.containsKey(fileName)
+                || !promoting.add(fileName)) {
+            return null;
+        }
+        int frequency = frequencies.frequency(fileName);
+        List<Map.Entry<String, Long>> victims = new ArrayList<>();
+        long free = maxBytes - bytes;
+        Iterator<Map.Entry<String, Long>> iterator =
+                promoted.entrySet().iterator();
+        while (free < size && iterator.hasNext()) {
+            Map.Entry<String, Long> victim = iterator.next();
+            if (frequencies.frequency(victim.getKey()) >= frequency) {
+                promoting.remove(fileName);
+                return null;
+            }
+            victims.add(victim);
+            free += victim.getValue();
+        }
+        if (free < size) {
+            promoting.remove(fileName);
+            return null;
+        }
+        List<String> demoted = new ArrayList<>();
+        for (Map.Entry<String, Long> victim : victims) {
+            demoted.add(victim.getKey());
+            bytes -= victim.getValue();
+        }
+        demoted.forEach(promoted::remove);
+        bytes += size;
+        return demoted;
+    }
+
+    /**
+     * Completes promotion of file.
+     *
+     * @param fileName name of file
+     * @param size     size of file in bytes
+     * @param start    time of start of fetch
+     * @param saved    whether file was saved to fast tier
+     * @return true - if file was promoted, false - if it must be removed
+     * from fast tier
+     */
+    private synchronized boolean commit(
+            final String fileName,
+            final long size,
+            final long start,
+            final boolean saved
+    ) {
+        promoting.remove(fileName);
+        if (!saved || !invalidations.isCurrent(fileName, start)) {
+            bytes -= size;
+            return false;
+        }
+        promoted.put(fileName, size);
+        promotions.increment();
+        return true;
+    }
+
+    /**
+     * Removes demoted file from fast tier.
+     *
+     * @param fileName name of file
+     */
+    private void demote(
+            final String fileName
+    ) {
+        demotions.increment();
+        discard(fileName);
+    }
+
+    /**
+     * Removes file from fast tier, which is not promoted anymore. Failure
+     * is ignored, as file is not read from fast tier unless it is promoted.
+     *
+     * @param fileName name of file
+     */
+    private void discard(
+            final String fileName
+    ) {
+        try {
+            fastTier.delete(fileName);
+        } catch (Exception ignored) {
+            // copy is overwritten, when file is promoted again
+        }
+    }
+
+    /**
+     * Removes file from fast tier.
+     *
+     * @param fileName name of file
+     */
+    private void invalidate(
+            final String fileName
+    ) {
+        boolean removed;
+        synchronized (this) {
+            invalidations.invalidate(fileName);
+            Long size = promoted.remove(fileName);
+            removed = size != null;
+            if (removed) {
+                bytes -= size;
+            }
+        }
+        if (removed) {
+            discard(fileName);
+        }
+    }
+
+    /**
+     * Removes all files in folder from fast tier.
+     *
+     * @param path path to folder
+     */
+    private void invalidateFolder(
+            final Path path
+    ) {
+        String prefix = path + "/";
+        List<String> removed = new ArrayList<>();
+        synchronized (this) {
+            invalidations.invalidateFolder(prefix);
+            Iterator<Map.Entry<String, Long>> iterator =
+                    promoted.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Long> entry = iterator.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    iterator.remove();
+                    bytes -= entry.getValue();
+                    removed.add(entry.getKey());
+                }
+            }
+        }
+        removed.forEach(this::discard);
+    }
+
+    private synchronized long begin(
+            final String fileName
+    ) {
+        return invalidations.begin(fileName);
+    }
+
+    private synchronized void end(
+            final String fileName
+    ) {
+        invalidations.end(fileName);
+    }
+
+}
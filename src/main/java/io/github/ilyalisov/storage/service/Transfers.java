@@ -0,0 +1,78 @@
+package io.github.ilyalisov.storage.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Utility methods of copying content through reused buffers.
+ */
+final class Transfers {
+
+    /**
+     * Size of copy buffer.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Copy buffer of each thread.
+     */
+    private static final ThreadLocal<byte[]> BUFFERS =
+            ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private Transfers() {
+    }
+
+    /**
+     * Copies stream to channel.
+     *
+     * @param in  source stream
+     * @param out target channel
+     * @return number of copied bytes
+     * @throws IOException if stream can not be read or channel can not be
+     *                     written
+     */
+    static long copy(
+            final InputStream in,
+            final WritableByteChannel out
+    ) throws IOException {
+        byte[] bytes = BUFFERS.get();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long copied = 0;
+        int read;
+        while ((read = in.read(bytes)) >= 0) {
+            buffer.clear().limit(read);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            copied += read;
+        }
+        return copied;
+    }
+
+    /**
+     * Copies stream to another stream.
+     *
+     * @param in  source stream
+     * @param out target stream
+     * @return number of copied bytes
+     * @throws IOException if source can not be read or target can not be
+     *                     written
+     */
+    static long copy(
+            final InputStream in,
+            final OutputStream out
+    ) throws IOException {
+        byte[] bytes = BUFFERS.get();
+        long copied = 0;
+        int read;
+        while ((read = in.read(bytes)) >= 0) {
+            out.write(bytes, 0, read);
+            copied += read;
+        }
+        return copied;
+    }
+
+}
@@ -0,0 +1,158 @@
+package io.github.ilyalisov.storage.benchmark;
+
+import io.github.ilyalisov.storage.service.InMemoryStorageServiceImpl;
+import io.github.ilyalisov.storage.service.LocalFileStorageServiceImpl;
+import io.github.ilyalisov.storage.service.MinIOStorageServiceImpl;
+import io.github.ilyalisov.storage.service.StorageService;
+import lombok.SneakyThrows;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Storage backend of benchmarks with resources it runs on.
+ */
+final class Backend implements AutoCloseable {
+
+    /**
+     * Limit of in-memory backend in bytes. Benchmarks fork with 8 GiB of
+     * direct memory, half of it is left for buffers of files being saved.
+     */
+    static final long MEMORY_LIMIT = 4L * 1024 * 1024 * 1024;
+
+    private final StorageService storageService;
+
+    private final GenericContainer<?> container;
+
+    private final Path directory;
+
+    private Backend(
+            final StorageService storageService,
+            final GenericContainer<?> container,
+            final Path directory
+    ) {
+        this.storageService = storageService;
+        this.container = container;
+        this.directory = directory;
+    }
+
+    /**
+     * Starts backend.
+     *
+     * @param name name of backend: local, memory or minio
+     * @return backend
+     */
+    @SneakyThrows
+    static Backend start(
+            final String name
+    ) {
+        switch (name) {
+            case "local":
+                Path directory = Files.createTempDirectory("storage");
+                return new Backend(
+                        new LocalFileStorageServiceImpl(directory),
+                        null,
+                        directory
+                );
+            case "memory":
+                return new Backend(
+                        new InMemoryStorageServiceImpl(MEMORY_LIMIT),
+                        null,
+                        null
+                );
+            case "minio":
+                GenericContainer<?> minio = new GenericContainer<>(
+                        DockerImageName.parse("minio/minio")
+                )
+                        .withEnv("MINIO_ROOT_USER", "rootUser")
+                        .withEnv("MINIO_ROOT_PASSWORD", "rootPassword")
+                        .withCommand("server /minio")
+                        .withExposedPorts(9000);
+                minio.start();
+                return new Backend(
+                        new MinIOStorageServiceImpl(
+                                "http://" + minio.getHost() + ":"
+                                        + minio.getMappedPort(9000),
+                                "rootUser",
+                                "rootPassword",
+                                "bucket"
+                        ),
+                        minio,
+                        null
+                );
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown backend: " + name
+                );
+        }
+    }
+
+    StorageService getStorageService() {
+        return storageService;
+    }
+
+    /**
+     * Creates local file with random content.
+     *
+     * @param size size of file in bytes
+     * @return path to file
+     */
+    @SneakyThrows
+    static Path createSource(
+            final long size
+    ) {
+        Path source = Files.createTempFile("storage", ".bin");
+        byte[] chunk = new byte[1024 * 1024];
+        new Random().nextBytes(chunk);
+        try (OutputStream out = Files.newOutputStream(source)) {
+            long written = 0;
+            while (written < size) {
+                int length = (int) Math.min(chunk.length, size - written);
+                out.write(chunk, 0, length);
+                written += length;
+            }
+        }
+        return source;
+    }
+
+    @Override
+    @SneakyThrows
+    public void close() {
+        if (container != null) {
+            container.stop();
+        }
+        if (directory != null) {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Deletes directory with its content.
+     *
+     * @param directory directory
+     */
+    @SneakyThrows
+    static void delete(
+            final Path directory
+    ) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder())
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package io.github.ilyalisov.storage.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks at each concurrency level with GC profiler, which
+ * reports allocation rate per operation.
+ * Arguments are regular expression of benchmarks and comma-separated
+ * numbers of threads.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Runs benchmarks.
+     *
+     * @param args regular expression of benchmarks and numbers of threads
+     * @throws RunnerException if benchmark fails
+     */
+    public static void main(
+            final String[] args
+    ) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*";
+        String threads = args.length > 1 ? args[1] : "1";
+        for (String count : threads.split(",")) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(Integer.parseInt(count.trim()))
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+}
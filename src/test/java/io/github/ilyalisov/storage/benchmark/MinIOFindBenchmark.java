@@ -0,0 +1,97 @@
+package io.github.ilyalisov.storage.benchmark;
+
+import io.github.ilyalisov.storage.config.StorageFile;
+import io.github.ilyalisov.storage.service.MinIOStorageServiceImpl;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.StatObjectArgs;
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares latency of find with previous getObject and statObject pair
+ * against local MinIO container.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MinIOFindBenchmark {
+
+    private static final String FILE_NAME = "benchmark/file.txt";
+
+    private GenericContainer<?> minio;
+
+    private MinIOStorageServiceImpl storageService;
+
+    @Setup
+    public void setup() {
+        minio = new GenericContainer<>(DockerImageName.parse("minio/minio"))
+                .withEnv("MINIO_ROOT_USER", "rootUser")
+                .withEnv("MINIO_ROOT_PASSWORD", "rootPassword")
+                .withCommand("server /minio")
+                .withExposedPorts(9000);
+        minio.start();
+        storageService = new MinIOStorageServiceImpl(
+                "http://" + minio.getHost() + ":" + minio.getMappedPort(9000),
+                "rootUser",
+                "rootPassword",
+                "bucket"
+        );
+        storageService.save(new StorageFile(
+                FILE_NAME,
+                "text/plain",
+                new ByteArrayInputStream(new byte[1024])
+        ));
+    }
+
+    @TearDown
+    public void tearDown() {
+        minio.stop();
+    }
+
+    @Benchmark
+    @SneakyThrows
+    public byte[] find() {
+        try (StorageFile file = storageService.find(FILE_NAME).orElseThrow()) {
+            return file.getInputStream().readAllBytes();
+        }
+    }
+
+    @Benchmark
+    @SneakyThrows
+    public byte[] getObjectAndStatObject() {
+        try (GetObjectResponse response = storageService.getClient().getObject(
+                GetObjectArgs.builder()
+                        .bucket("bucket")
+                        .object(FILE_NAME)
+                        .build()
+        )) {
+            storageService.getClient().statObject(
+                    StatObjectArgs.builder()
+                            .bucket("bucket")
+                            .object(FILE_NAME)
+                            .build()
+            );
+            return response.readAllBytes();
+        }
+    }
+
+}
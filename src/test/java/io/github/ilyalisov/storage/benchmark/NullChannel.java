@@ -0,0 +1,29 @@
+package io.github.ilyalisov.storage.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Channel, which discards written bytes.
+ */
+final class NullChannel implements WritableByteChannel {
+
+    @Override
+    public int write(
+            final ByteBuffer src
+    ) {
+        int remaining = src.remaining();
+        src.position(src.limit());
+        return remaining;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
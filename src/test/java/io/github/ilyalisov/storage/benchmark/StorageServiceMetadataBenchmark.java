@@ -0,0 +1,125 @@
+package io.github.ilyalisov.storage.benchmark;
+
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.FilePage;
+import io.github.ilyalisov.storage.config.StorageFile;
+import io.github.ilyalisov.storage.service.StorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures operations, which do not depend on size of files: listing of
+ * folder, checks of existence and deletion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageServiceMetadataBenchmark {
+
+    private static final Path PATH = Path.of("benchmark");
+
+    private static final int FILES = 1000;
+
+    private static final String CONTENT_TYPE = "text/plain";
+
+    @Param({"local", "memory", "minio"})
+    public String backend;
+
+    @Param({"100"})
+    public int pageSize;
+
+    private Backend storage;
+
+    private StorageService storageService;
+
+    /**
+     * File saved before each invocation of delete by one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class DeletedFile {
+
+        private final String fileName = UUID.randomUUID() + ".txt";
+
+        @Setup(Level.Invocation)
+        public void save(
+                final StorageServiceMetadataBenchmark benchmark
+        ) {
+            benchmark.storageService.save(file(fileName));
+        }
+
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        storage = Backend.start(backend);
+        storageService = storage.getStorageService();
+        for (int i = 0; i < FILES; i++) {
+            storageService.save(file(PATH + "/file" + i + ".txt"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.close();
+    }
+
+    @Benchmark
+    public int findAll() throws IOException {
+        FilePage page = storageService.findAll(
+                PATH,
+                new CursorPage(pageSize)
+        );
+        for (StorageFile file : page.getFiles()) {
+            file.close();
+        }
+        return page.getFiles().size();
+    }
+
+    @Benchmark
+    public boolean existsExisting() {
+        return storageService.exists("file1.txt", PATH);
+    }
+
+    @Benchmark
+    public boolean existsNotExisting() {
+        return storageService.exists("notExisting.txt", PATH);
+    }
+
+    @Benchmark
+    public void delete(
+            final DeletedFile file
+    ) {
+        storageService.delete(file.fileName);
+    }
+
+    private static StorageFile file(
+            final String fileName
+    ) {
+        return new StorageFile(
+                fileName,
+                CONTENT_TYPE,
+                new ByteArrayInputStream(new byte[1024])
+        );
+    }
+
+}
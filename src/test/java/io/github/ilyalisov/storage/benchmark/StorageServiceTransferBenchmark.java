@@ -0,0 +1,142 @@
+package io.github.ilyalisov.storage.benchmark;
+
+import io.github.ilyalisov.storage.config.StorageFile;
+import io.github.ilyalisov.storage.service.StorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures save, find and ranged find of files from 1 KiB to 1 GiB. Files
+ * are saved from local file and found into discarding channel, so heap use
+ * of benchmark itself does not depend on size of file.
+ * <p>
+ * In-memory backend holds content being saved by each thread in addition to
+ * stored files, so saves, which do not fit direct memory, are skipped.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-XX:MaxDirectMemorySize=8g")
+public class StorageServiceTransferBenchmark {
+
+    private static final Path PATH = Path.of("benchmark");
+
+    private static final String FILE_NAME = "file.bin";
+
+    private static final String CONTENT_TYPE = "application/octet-stream";
+
+    private static final long RANGE_LENGTH = 1024 * 1024;
+
+    @Param({"local", "memory", "minio"})
+    public String backend;
+
+    @Param({"1024", "1048576", "67108864", "1073741824"})
+    public long size;
+
+    private Backend storage;
+
+    private StorageService storageService;
+
+    private Path source;
+
+    /**
+     * Name of file saved by one benchmark thread, which is overwritten by
+     * each save of thread, so threads do not overwrite each other and
+     * storage does not grow with iterations.
+     */
+    @State(Scope.Thread)
+    public static class ThreadFile {
+
+        private final String fileName = UUID.randomUUID() + ".bin";
+
+    }
+
+    @Setup(Level.Trial)
+    public void setup(
+            final BenchmarkParams params
+    ) {
+        if (backend.equals("memory")
+                && params.getBenchmark().endsWith(".save")
+                && size * params.getThreads() > Backend.MEMORY_LIMIT / 2) {
+            throw new IllegalStateException(
+                    "Skipped: " + params.getThreads() + " saves of "
+                            + size + " bytes do not fit direct memory."
+            );
+        }
+        storage = Backend.start(backend);
+        storageService = storage.getStorageService();
+        source = Backend.createSource(size);
+        storageService.save(new StorageFile(
+                FILE_NAME,
+                PATH,
+                CONTENT_TYPE,
+                source
+        ));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (storage != null) {
+            storage.close();
+        }
+        if (source != null) {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Benchmark
+    public Path save(
+            final ThreadFile file
+    ) {
+        return storageService.save(new StorageFile(
+                file.fileName,
+                PATH,
+                CONTENT_TYPE,
+                source
+        ));
+    }
+
+    @Benchmark
+    public long find() {
+        return storageService.findTo(
+                FILE_NAME,
+                PATH,
+                new NullChannel()
+        ).orElseThrow();
+    }
+
+    @Benchmark
+    public long findRange() throws IOException {
+        try (StorageFile file = storageService.find(
+                FILE_NAME,
+                PATH,
+                size / 2,
+                RANGE_LENGTH
+        ).orElseThrow()) {
+            return file.getInputStream()
+                    .transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+}
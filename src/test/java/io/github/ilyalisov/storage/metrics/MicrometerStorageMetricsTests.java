@@ -0,0 +1,139 @@
+package io.github.ilyalisov.storage.metrics;
+
+import io.github.ilyalisov.storage.config.StorageFile;
+import io.github.ilyalisov.storage.config.StorageOptions;
+import io.github.ilyalisov.storage.service.LocalFileStorageServiceImpl;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MicrometerStorageMetricsTests {
+
+    private SimpleMeterRegistry registry;
+
+    private LocalFileStorageServiceImpl storageService;
+
+    @TempDir
+    private Path root;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        storageService = new LocalFileStorageServiceImpl(
+                root,
+                StorageOptions.builder()
+                        .metrics(new MicrometerStorageMetrics(registry))
+                        .build()
+        );
+    }
+
+    @Test
+    @SneakyThrows
+    void recordsOperationsAndBytes() {
+        byte[] content = new byte[1000];
+        storageService.save(new StorageFile(
+                "file.bin",
+                Path.of("folder"),
+                "application/octet-stream",
+                new ByteArrayInputStream(content)
+        ));
+        try (InputStream stream = storageService.find("folder/file.bin")
+                .orElseThrow()
+                .getInputStream()) {
+            assertEquals(content.length, stream.readAllBytes().length);
+        }
+        assertTrue(storageService.exists("folder/file.bin"));
+        assertFalse(storageService.exists("folder/missing.bin"));
+        assertEquals(1, timer("save", "success").count());
+        assertEquals(1, timer("find", "success").count());
+        assertEquals(2, timer("exists", "success").count());
+        assertEquals(
+                content.length,
+                registry.get("storage.bytes.written").counter().count()
+        );
+        assertEquals(
+                content.length,
+                registry.get("storage.bytes.read").counter().count()
+        );
+        assertEquals(
+                0,
+                registry.get("storage.operation.active")
+                        .tag("operation", "find")
+                        .gauge()
+                        .value()
+        );
+    }
+
+    @Test
+    void recordsErrors() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> storageService.find("file.bin", -1, 1)
+        );
+        assertEquals(1, timer("findRange", "error").count());
+        assertEquals(
+                1,
+                registry.get("storage.errors")
+                        .tag("operation", "findRange")
+                        .tag("exception", "IllegalArgumentException")
+                        .counter()
+                        .count()
+        );
+    }
+
+    @Test
+    void countsOperationsInFlight() {
+        MicrometerStorageMetrics metrics =
+                new MicrometerStorageMetrics(registry);
+        StorageMetrics.Sample first = metrics.start("save");
+        StorageMetrics.Sample second = metrics.start("save");
+        assertEquals(
+                2,
+                registry.get("storage.operation.active")
+                        .tag("operation", "save")
+                        .gauge()
+                        .value()
+        );
+        first.success();
+        second.failure(new IllegalStateException());
+        assertEquals(
+                0,
+                registry.get("storage.operation.active")
+                        .tag("operation", "save")
+                        .gauge()
+                        .value()
+        );
+        metrics.request("getObject");
+        metrics.request("getObject");
+        assertEquals(
+                2,
+                registry.get("storage.requests")
+                        .tag("request", "getObject")
+                        .counter()
+                        .count()
+        );
+    }
+
+    private Timer timer(
+            final String operation,
+            final String outcome
+    ) {
+        return registry.get("storage.operation")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer();
+    }
+
+}
@@ -0,0 +1,219 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.StorageFile;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CoalescingStorageServiceTests {
+
+    private static final int THREADS = 8;
+
+    private static final String THREAD_PREFIX = "coalescing-test-";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private MapStorageService delegate;
+
+    private CoalescingStorageService storageService;
+
+    @BeforeEach
+    void setup() {
+        delegate = new MapStorageService();
+        delegate.contents.put("folder/file.txt", new byte[]{1, 2, 3});
+        storageService = new CoalescingStorageService(delegate, 1024);
+    }
+
+    @Test
+    @SneakyThrows
+    void concurrentFindsShareOneFetch() {
+        delegate.gate = new CountDownLatch(1);
+        delegate.arrived = new CountDownLatch(1);
+        ExecutorService executor = executor();
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    try (StorageFile file = storageService.find(
+                            "folder/file.txt"
+                    ).orElseThrow()) {
+                        return file.getInputStream().readAllBytes();
+                    }
+                }));
+            }
+            assertTimeoutPreemptively(TIMEOUT, () -> {
+                awaitWaiting(THREADS);
+                delegate.gate.countDown();
+                for (Future<byte[]> result : results) {
+                    assertArrayEquals(new byte[]{1, 2, 3}, result.get());
+                }
+            });
+        } finally {
+            delegate.gate.countDown();
+            executor.shutdownNow();
+        }
+        assertEquals(1, delegate.finds.get());
+        assertEquals(THREADS - 1, storageService.getCoalesced());
+    }
+
+    @Test
+    @SneakyThrows
+    void concurrentChecksShareOneCheck() {
+        delegate.gate = new CountDownLatch(1);
+        delegate.arrived = new CountDownLatch(1);
+        ExecutorService executor = executor();
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(
+                        () -> storageService.exists("folder/missing.txt")
+                ));
+            }
+            assertTimeoutPreemptively(TIMEOUT, () -> {
+                awaitWaiting(THREADS);
+                delegate.gate.countDown();
+                for (Future<Boolean> result : results) {
+                    assertFalse(result.get());
+                }
+            });
+        } finally {
+            delegate.gate.countDown();
+            executor.shutdownNow();
+        }
+        assertEquals(1, delegate.existsChecks.get());
+        assertEquals(THREADS - 1, storageService.getCoalesced());
+    }
+
+    @Test
+    void sequentialFindsAreNotCached() {
+        assertTrue(storageService.find("folder/file.txt").isPresent());
+        assertTrue(storageService.find(
+                "file.txt",
+                Path.of("folder")
+        ).isPresent());
+        assertEquals(2, delegate.finds.get());
+        assertEquals(0, storageService.getCoalesced());
+    }
+
+    @Test
+    @SneakyThrows
+    void fileLargerThanLimitIsStreamed() {
+        storageService = new CoalescingStorageService(delegate, 2);
+        Optional<StorageFile> file = storageService.find("folder/file.txt");
+        assertTrue(file.isPresent());
+        try (InputStream stream = file.get().getInputStream()) {
+            assertArrayEquals(new byte[]{1, 2, 3}, stream.readAllBytes());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void savedFileIsFound() {
+        storageService.save(new StorageFile(
+                "file.txt",
+                Path.of("folder"),
+                "text/plain",
+                new ByteArrayInputStream(new byte[]{4})
+        ));
+        try (StorageFile file = storageService.find("folder/file.txt")
+                .orElseThrow()) {
+            assertArrayEquals(
+                    new byte[]{4},
+                    file.getInputStream().readAllBytes()
+            );
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void singleFindIsStreamedWithoutBuffering() {
+        List<StorageFile> returned = new ArrayList<>();
+        storageService = new CoalescingStorageService(
+                new MapStorageService() {
+                    @Override
+                    public Optional<StorageFile> find(
+                            final String fileName
+                    ) {
+                        Optional<StorageFile> found = super.find(fileName);
+                        found.ifPresent(returned::add);
+                        return found;
+                    }
+                },
+                1024
+        );
+        ((MapStorageService) storageService.getDelegate()).contents.put(
+                "folder/file.txt",
+                new byte[]{1, 2, 3}
+        );
+        try (StorageFile file = storageService.find("folder/file.txt")
+                .orElseThrow()) {
+            assertSame(returned.get(0), file);
+            assertEquals(3, file.getInputStream().available());
+        }
+    }
+
+    private ExecutorService executor() {
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newFixedThreadPool(
+                THREADS,
+                task -> new Thread(
+                        task,
+                        THREAD_PREFIX + threads.incrementAndGet()
+                )
+        );
+    }
+
+    /**
+     * Waits until first thread calls decorated service and all threads
+     * wait inside decorator.
+     *
+     * @param threads number of threads
+     */
+    @SneakyThrows
+    private void awaitWaiting(
+            final int threads
+    ) {
+        delegate.arrived.await();
+        while (Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith(THREAD_PREFIX))
+                .filter(thread -> thread.getState() == Thread.State.WAITING)
+                .filter(this::inService)
+                .count() < threads) {
+            Thread.sleep(10);
+        }
+    }
+
+    private boolean inService(
+            final Thread thread
+    ) {
+        for (StackTraceElement element : thread.getStackTrace()) {
+            if (element.getClassName().equals(
+                    CoalescingStorageService.class.getName()
+            )) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
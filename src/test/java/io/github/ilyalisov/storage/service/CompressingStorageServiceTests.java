@@ -0,0 +1,207 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.StorageFile;
+import lombok.SneakyThrows;
+import org.apache.http.entity.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressingStorageServiceTests {
+
+    private InMemoryStorageServiceImpl delegate;
+
+    private CompressingStorageService storageService;
+
+    @BeforeEach
+    void setup() {
+        delegate = new InMemoryStorageServiceImpl();
+        storageService = new CompressingStorageService(delegate);
+    }
+
+    private byte[] json() {
+        return "{\"name\":\"value\",\"items\":[1,2,3]}\n"
+                .repeat(500)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void save(
+            final String fileName,
+            final String contentType,
+            final byte[] content
+    ) {
+        storageService.save(new StorageFile(
+                fileName,
+                contentType,
+                new ByteArrayInputStream(content)
+        ));
+    }
+
+    @SneakyThrows
+    private byte[] read(
+            final StorageFile file
+    ) {
+        try (file) {
+            return file.getInputStream().readAllBytes();
+        }
+    }
+
+    @Test
+    void compressesTextFiles() {
+        byte[] content = json();
+        save("file.json", ContentType.APPLICATION_JSON.toString(), content);
+        StorageFile stored = delegate.find("file.json").orElseThrow();
+        assertEquals("deflate", stored.getContentEncoding());
+        assertTrue(stored.getSize() < content.length / 5);
+        StorageFile found = storageService.find("file.json").orElseThrow();
+        assertNull(found.getContentEncoding());
+        assertArrayEquals(content, read(found));
+    }
+
+    @Test
+    void savesCompressedTypesAndSmallFilesAsIs() {
+        byte[] image = new byte[4096];
+        new Random().nextBytes(image);
+        save("image.png", ContentType.IMAGE_PNG.getMimeType(), image);
+        save("small.txt", ContentType.TEXT_PLAIN.getMimeType(), new byte[10]);
+        StorageFile stored = delegate.find("image.png").orElseThrow();
+        assertNull(stored.getContentEncoding());
+        assertEquals(image.length, stored.getSize());
+        assertNull(delegate.find("small.txt").orElseThrow()
+                .getContentEncoding());
+        assertArrayEquals(
+                image,
+                read(storageService.find("image.png").orElseThrow())
+        );
+    }
+
+    @Test
+    void findsRangeOfCompressedFile() {
+        byte[] content = json();
+        save("file.json", ContentType.APPLICATION_JSON.toString(), content);
+        long stored = delegate.find("file.json").orElseThrow().getSize();
+        long offset = stored + 100;
+        assertArrayEquals(
+                Arrays.copyOfRange(content, (int) offset, (int) offset + 50),
+                read(storageService.find("file.json", offset, 50)
+                        .orElseThrow())
+        );
+        assertArrayEquals(
+                new byte[0],
+                read(storageService.find("file.json", content.length, 50)
+                        .orElseThrow())
+        );
+    }
+
+    @Test
+    void findsRangeOfCompressedFileWithOneRequest() {
+        AtomicInteger finds = new AtomicInteger();
+        AtomicInteger rangeFinds = new AtomicInteger();
+        storageService = new CompressingStorageService(
+                new DelegatingStorageService(delegate) {
+                    @Override
+                    public Optional<StorageFile> find(
+                            final String fileName
+                    ) {
+                        finds.incrementAndGet();
+                        return super.find(fileName);
+                    }
+
+                    @Override
+                    public Optional<StorageFile> find(
+                            final String fileName,
+                            final long offset,
+                            final long length
+                    ) {
+                        rangeFinds.incrementAndGet();
+                        return super.find(fileName, offset, length);
+                    }
+                }
+        );
+        byte[] content = json();
+        save("file.json", ContentType.APPLICATION_JSON.toString(), content);
+        assertArrayEquals(
+                Arrays.copyOfRange(content, 10, 20),
+                read(storageService.find("file.json", 10, 10)
+                        .orElseThrow())
+        );
+        assertEquals(1, finds.get());
+        assertEquals(0, rangeFinds.get());
+        byte[] image = new byte[4096];
+        new Random().nextBytes(image);
+        save("image.png", ContentType.IMAGE_PNG.getMimeType(), image);
+        StorageFile head = storageService.find("image.png", 0, 10)
+                .orElseThrow();
+        assertEquals(10, head.getSize());
+        assertArrayEquals(Arrays.copyOfRange(image, 0, 10), read(head));
+        assertEquals(2, finds.get());
+        assertEquals(0, rangeFinds.get());
+        assertArrayEquals(
+                Arrays.copyOfRange(image, 100, 110),
+                read(storageService.find("image.png", 100, 10)
+                        .orElseThrow())
+        );
+        assertEquals(1, rangeFinds.get());
+    }
+
+    @Test
+    void decompressesListedFiles() {
+        byte[] content = json();
+        save("folder/file.json", ContentType.APPLICATION_JSON.toString(),
+                content);
+        List<StorageFile> files = storageService.findAll(
+                Path.of("folder"),
+                new CursorPage(10)
+        ).getFiles();
+        assertEquals(1, files.size());
+        assertArrayEquals(content, read(files.get(0)));
+        StorageFile streamed = storageService.streamAll(Path.of("folder"), 10)
+                .findFirst()
+                .orElseThrow();
+        assertArrayEquals(content, read(streamed));
+    }
+
+    @Test
+    void writesDecompressedContent() {
+        byte[] content = json();
+        save("file.json", ContentType.APPLICATION_JSON.toString(), content);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OptionalLong written = storageService.findTo("file.json", out);
+        assertEquals(content.length, written.orElseThrow());
+        assertArrayEquals(content, out.toByteArray());
+        assertFalse(storageService.findTo("missing.json", out).isPresent());
+    }
+
+    @Test
+    void choosesFilesByContentType() {
+        assertTrue(CompressingStorageService.isCompressible(
+                "text/csv; charset=UTF-8"
+        ));
+        assertTrue(CompressingStorageService.isCompressible(
+                "application/vnd.api+json"
+        ));
+        assertFalse(CompressingStorageService.isCompressible("image/jpeg"));
+        assertFalse(CompressingStorageService.isCompressible(
+                "application/gzip"
+        ));
+        assertFalse(CompressingStorageService.isCompressible(null));
+    }
+
+}
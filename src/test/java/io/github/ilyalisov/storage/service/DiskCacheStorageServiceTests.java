@@ -0,0 +1,282 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.StorageFile;
+import lombok.SneakyThrows;
+import org.apache.http.entity.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DiskCacheStorageServiceTests {
+
+    private MapStorageService delegate;
+
+    private DiskCacheStorageService storageService;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void setup() {
+        delegate = new MapStorageService();
+        storageService = new DiskCacheStorageService(
+                delegate,
+                directory,
+                10
+        );
+    }
+
+    @SneakyThrows
+    private void save(
+            final String fileName,
+            final byte[] content
+    ) {
+        storageService.save(new StorageFile(
+                fileName,
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(content)
+        ));
+    }
+
+    @SneakyThrows
+    private byte[] read(
+            final String fileName
+    ) {
+        try (StorageFile file = storageService.find(fileName).orElseThrow()) {
+            return file.getInputStream().readAllBytes();
+        }
+    }
+
+    @Test
+    void findCachedFile() {
+        save("file1.txt", new byte[]{1, 2, 3});
+        assertArrayEquals(new byte[]{1, 2, 3}, read("file1.txt"));
+        assertArrayEquals(new byte[]{1, 2, 3}, read("file1.txt"));
+        assertEquals(1, delegate.finds.get());
+        assertEquals(1, storageService.getHits());
+        assertEquals(1, storageService.getMisses());
+        assertEquals(3, storageService.getCachedBytes());
+    }
+
+    @Test
+    @SneakyThrows
+    void findCachedFileWithContentType() {
+        save("file1.txt", new byte[]{1});
+        read("file1.txt");
+        try (StorageFile file = storageService.find("file1.txt")
+                .orElseThrow()) {
+            assertEquals(
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    file.getContentType()
+            );
+            assertEquals(1, file.getSize());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findRangeOfCachedFile() {
+        save("file1.txt", new byte[]{1, 2, 3, 4});
+        read("file1.txt");
+        try (StorageFile file = storageService.find("file1.txt", 1, 2)
+                .orElseThrow()) {
+            assertEquals(2, file.getSize());
+            assertArrayEquals(
+                    new byte[]{2, 3},
+                    file.getInputStream().readAllBytes()
+            );
+        }
+        assertEquals(1, delegate.finds.get());
+        assertEquals(1, storageService.getHits());
+    }
+
+    @Test
+    @SneakyThrows
+    void findRangeOfNotCachedFile() {
+        save("file1.txt", new byte[]{1, 2, 3, 4});
+        try (StorageFile file = storageService.find("file1.txt", 2, 10)
+                .orElseThrow()) {
+            assertArrayEquals(
+                    new byte[]{3, 4},
+                    file.getInputStream().readAllBytes()
+            );
+        }
+        assertEquals(0, storageService.getCachedBytes());
+    }
+
+    @Test
+    @SneakyThrows
+    void findToTransfersCachedFile() {
+        save("file1.txt", new byte[]{1, 2, 3});
+        read("file1.txt");
+        ByteArrayOutputStream channel = new ByteArrayOutputStream();
+        assertEquals(
+                OptionalLong.of(3),
+                storageService.findTo(
+                        "file1.txt",
+                        Channels.newChannel(channel)
+                )
+        );
+        assertArrayEquals(new byte[]{1, 2, 3}, channel.toByteArray());
+        Path target = directory.resolve("target.txt");
+        assertEquals(
+                OptionalLong.of(3),
+                storageService.findTo("file1.txt", target)
+        );
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(target));
+        assertEquals(1, delegate.finds.get());
+        assertEquals(2, storageService.getHits());
+    }
+
+    @Test
+    void findNotExistingFile() {
+        Optional<StorageFile> file = storageService.find("notExisting.txt");
+        assertTrue(file.isEmpty());
+        assertEquals(1, storageService.getMisses());
+    }
+
+    @Test
+    void evictLeastRecentlyUsedFile() {
+        save("file1.txt", new byte[4]);
+        save("file2.txt", new byte[4]);
+        save("file3.txt", new byte[4]);
+        read("file1.txt");
+        read("file2.txt");
+        read("file1.txt");
+        read("file3.txt");
+        assertEquals(1, storageService.getEvictions());
+        assertEquals(8, storageService.getCachedBytes());
+        read("file1.txt");
+        read("file2.txt");
+        assertEquals(4, delegate.finds.get());
+    }
+
+    @Test
+    void doNotCacheFileLargerThanCache() {
+        save("file1.txt", new byte[11]);
+        assertEquals(11, read("file1.txt").length);
+        assertEquals(0, storageService.getCachedBytes());
+    }
+
+    @Test
+    void saveInvalidatesCachedFile() {
+        save("file1.txt", new byte[]{1});
+        read("file1.txt");
+        save("file1.txt", new byte[]{2});
+        assertArrayEquals(new byte[]{2}, read("file1.txt"));
+        assertEquals(2, delegate.finds.get());
+    }
+
+    @Test
+    void deleteInvalidatesCachedFile() {
+        save("file1.txt", new byte[]{1});
+        read("file1.txt");
+        storageService.delete("file1.txt");
+        assertFalse(storageService.exists("file1.txt"));
+        assertTrue(storageService.find("file1.txt").isEmpty());
+        assertEquals(0, storageService.getCachedBytes());
+    }
+
+    @Test
+    void deleteFolderInvalidatesCachedFiles() {
+        save("folder/file1.txt", new byte[]{1});
+        save("other/file2.txt", new byte[]{2});
+        read("folder/file1.txt");
+        read("other/file2.txt");
+        storageService.delete(Path.of("folder"));
+        assertTrue(storageService.find("folder/file1.txt").isEmpty());
+        assertEquals(1, storageService.getCachedBytes());
+    }
+
+    @Test
+    void writesOfOtherFilesDoNotDropFetch() {
+        save("folder/file1.txt", new byte[]{1});
+        delegate.gate = new CountDownLatch(1);
+        delegate.arrived = new CountDownLatch(1);
+        CompletableFuture<byte[]> fetch = CompletableFuture.supplyAsync(
+                () -> read("folder/file1.txt")
+        );
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            delegate.arrived.await();
+            save("folder/file2.txt", new byte[]{2});
+            storageService.delete(Path.of("other"));
+            delegate.gate.countDown();
+            assertArrayEquals(new byte[]{1}, fetch.join());
+        });
+        assertEquals(1, storageService.getCachedBytes());
+    }
+
+    @Test
+    void saveDuringFetchIsNotCached() {
+        save("folder/file1.txt", new byte[]{1});
+        delegate.gate = new CountDownLatch(1);
+        delegate.arrived = new CountDownLatch(1);
+        CompletableFuture<byte[]> fetch = CompletableFuture.supplyAsync(
+                () -> read("folder/file1.txt")
+        );
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            delegate.arrived.await();
+            storageService.delete(Path.of("folder"));
+            delegate.contents.put("folder/file1.txt", new byte[]{2});
+            delegate.gate.countDown();
+            fetch.join();
+        });
+        assertEquals(0, storageService.getCachedBytes());
+    }
+
+    @Test
+    @SneakyThrows
+    void fileOfUnknownSizeLargerThanCacheIsCopiedOnlyUpToLimit() {
+        ByteArrayInputStream[] source = new ByteArrayInputStream[1];
+        storageService = new DiskCacheStorageService(
+                new MapStorageService() {
+                    @Override
+                    public Optional<StorageFile> find(
+                            final String fileName
+                    ) {
+                        Optional<StorageFile> file = super.find(fileName);
+                        file.ifPresent(found -> {
+                            found.setSize(-1);
+                            source[0] = (ByteArrayInputStream)
+                                    found.getInputStream();
+                        });
+                        return file;
+                    }
+                },
+                directory,
+                10
+        );
+        byte[] content = new byte[25];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        save("file1.txt", content);
+        try (StorageFile file = storageService.find("file1.txt")
+                .orElseThrow()) {
+            assertEquals(14, source[0].available());
+            try (var files = Files.list(directory)) {
+                assertEquals(0, files.count());
+            }
+            assertArrayEquals(content, file.getInputStream().readAllBytes());
+        }
+        assertEquals(0, storageService.getCachedBytes());
+    }
+
+}
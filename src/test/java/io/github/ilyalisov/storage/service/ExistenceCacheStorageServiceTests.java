@@ -0,0 +1,134 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.StorageFile;
+import org.apache.http.entity.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExistenceCacheStorageServiceTests {
+
+    private MapStorageService delegate;
+
+    @BeforeEach
+    void setup() {
+        delegate = new MapStorageService();
+        for (int i = 0; i < 10; i++) {
+            delegate.contents.put("folder/file" + i + ".txt", new byte[]{1});
+        }
+    }
+
+    private ExistenceCacheStorageService storageService(
+            final Duration ttl
+    ) {
+        return new ExistenceCacheStorageService(
+                delegate,
+                Path.of("folder"),
+                1000,
+                0.01,
+                ttl
+        );
+    }
+
+    private StorageFile file(
+            final String fileName
+    ) {
+        return new StorageFile(
+                fileName,
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{1})
+        );
+    }
+
+    @Test
+    void notExistingFileInIndexedFolderIsAnsweredLocally() {
+        ExistenceCacheStorageService storageService =
+                storageService(Duration.ofMinutes(1));
+        assertFalse(storageService.exists(
+                "notExisting.txt",
+                Path.of("folder")
+        ));
+        assertEquals(0, delegate.existsChecks.get());
+        assertEquals(1, storageService.getHits());
+    }
+
+    @Test
+    void existingFileIsCachedForTtl() {
+        ExistenceCacheStorageService storageService =
+                storageService(Duration.ofMinutes(1));
+        assertTrue(storageService.exists("folder/file1.txt"));
+        assertTrue(storageService.exists("folder/file1.txt"));
+        assertEquals(1, delegate.existsChecks.get());
+    }
+
+    @Test
+    void existingFileIsCheckedAfterTtl() {
+        ExistenceCacheStorageService storageService =
+                storageService(Duration.ZERO);
+        assertTrue(storageService.exists("folder/file1.txt"));
+        assertTrue(storageService.exists("folder/file1.txt"));
+        assertEquals(2, delegate.existsChecks.get());
+    }
+
+    @Test
+    void fileOutsideIndexedFolderIsCheckedInStorage() {
+        ExistenceCacheStorageService storageService =
+                storageService(Duration.ofMinutes(1));
+        assertFalse(storageService.exists("other/file1.txt"));
+        assertEquals(1, delegate.existsChecks.get());
+        assertEquals(1, storageService.getMisses());
+    }
+
+    @Test
+    void existsAllAsksStorageOnlyForUnknownFiles() {
+        ExistenceCacheStorageService storageService =
+                storageService(Duration.ofMinutes(1));
+        assertTrue(storageService.exists("folder/file1.txt"));
+        Set<String> found = storageService.existsAll(List.of(
+                "folder/file1.txt",
+                "folder/file2.txt",
+                "folder/notExisting.txt",
+                "other/file1.txt"
+        ));
+        assertEquals(Set.of("folder/file1.txt", "folder/file2.txt"), found);
+        assertEquals(3, delegate.existsChecks.get());
+        assertTrue(storageService.exists("folder/file2.txt"));
+        assertEquals(3, delegate.existsChecks.get());
+    }
+
+    @Test
+    void savedFileExists() {
+        ExistenceCacheStorageService storageService =
+                storageService(Duration.ZERO);
+        storageService.save(file("folder/newFile.txt"));
+        assertTrue(storageService.exists("folder/newFile.txt"));
+    }
+
+    @Test
+    void deletedFileDoesNotExist() {
+        ExistenceCacheStorageService storageService =
+                storageService(Duration.ofMinutes(1));
+        assertTrue(storageService.exists("folder/file1.txt"));
+        storageService.delete("file1.txt", Path.of("folder"));
+        assertFalse(storageService.exists("folder/file1.txt"));
+    }
+
+    @Test
+    void filesOfDeletedFolderDoNotExist() {
+        ExistenceCacheStorageService storageService =
+                storageService(Duration.ofMinutes(1));
+        assertTrue(storageService.exists("folder/file1.txt"));
+        storageService.delete(Path.of("folder"));
+        assertFalse(storageService.exists("folder/file1.txt"));
+    }
+
+}
@@ -0,0 +1,1006 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.ConditionalResult;
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.FilePage;
+import io.github.ilyalisov.storage.config.Page;
+import io.github.ilyalisov.storage.config.SaveResult;
+import io.github.ilyalisov.storage.config.StorageFile;
+import lombok.SneakyThrows;
+import org.apache.http.entity.ContentType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryStorageServiceImplTests {
+
+    private static InMemoryStorageServiceImpl storageService;
+
+    private static ClassLoader classLoader;
+
+    @BeforeAll
+    static void init() {
+        classLoader = InMemoryStorageServiceImplTests.class.getClassLoader();
+    }
+
+    @BeforeEach
+    void setup() {
+        storageService = new InMemoryStorageServiceImpl();
+    }
+
+    @Test
+    @SneakyThrows
+    void saveWithPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    Path.of("test", "innerFolder"),
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            Path path = storageService.save(file);
+            assertNotNull(path);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void saveWithoutPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            Path path = storageService.save(file);
+            assertNotNull(path);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void saveFromLocalFile() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        byte[] bytes = new byte[100_000];
+        new Random().nextBytes(bytes);
+        Path source = Files.createTempFile("storage", ".bin");
+        try {
+            Files.write(source, bytes);
+            StorageFile file = new StorageFile(
+                    "file.bin",
+                    path,
+                    ContentType.APPLICATION_OCTET_STREAM.getMimeType(),
+                    source
+            );
+            assertEquals(bytes.length, file.getSize());
+            storageService.save(file);
+        } finally {
+            Files.deleteIfExists(source);
+        }
+        try (StorageFile found = storageService.find("file.bin", path)
+                .orElseThrow()) {
+            assertEquals(
+                    ContentType.APPLICATION_OCTET_STREAM.getMimeType(),
+                    found.getContentType()
+            );
+            assertArrayEquals(bytes, found.getInputStream().readAllBytes());
+        }
+    }
+
+    @Test
+    void saveAllReportsResultsOfFiles() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        AtomicInteger index = new AtomicInteger();
+        List<SaveResult> results = storageService.saveAll(
+                Stream.generate(() -> new StorageFile(
+                                "file" + index.getAndIncrement() + ".txt",
+                                path,
+                                ContentType.TEXT_PLAIN.getMimeType(),
+                                new ByteArrayInputStream(new byte[]{1})
+                        ))
+                        .limit(20)
+        );
+        assertEquals(20, results.size());
+        assertTrue(results.stream().allMatch(SaveResult::isSuccessful));
+        assertEquals(
+                20,
+                storageService.findAll(path, new Page(1, 100)).size()
+        );
+    }
+
+    @Test
+    @SneakyThrows
+    void findExistingFileWithoutPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            byte[] bytes = serviceAccount.readAllBytes();
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(bytes)
+            );
+            storageService.save(file);
+            Optional<StorageFile> savedFile = storageService.find(
+                    "file1.txt"
+            );
+            assertFalse(savedFile.isEmpty());
+            assertEquals(file.getFileName(), savedFile.get()
+                    .getFileName());
+            assertEquals(file.getPath(), savedFile.get()
+                    .getPath());
+            assertEquals(file.getContentType(), savedFile.get()
+                    .getContentType());
+            assertArrayEquals(
+                    bytes,
+                    savedFile.get().getInputStream().readAllBytes()
+            );
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findRangeOfExistingFile() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        byte[] bytes = new byte[100];
+        new Random().nextBytes(bytes);
+        StorageFile file = new StorageFile(
+                "file.bin",
+                path,
+                ContentType.APPLICATION_OCTET_STREAM.getMimeType(),
+                new ByteArrayInputStream(bytes)
+        );
+        storageService.save(file);
+        try (StorageFile range = storageService.find(
+                "file.bin",
+                path,
+                10,
+                20
+        ).orElseThrow()) {
+            assertEquals(20, range.getSize());
+            assertEquals(file.getContentType(), range.getContentType());
+            assertArrayEquals(
+                    Arrays.copyOfRange(bytes, 10, 30),
+                    range.getInputStream().readAllBytes()
+            );
+        }
+        try (StorageFile range = storageService.find(
+                "file.bin",
+                path,
+                90,
+                20
+        ).orElseThrow()) {
+            assertArrayEquals(
+                    Arrays.copyOfRange(bytes, 90, 100),
+                    range.getInputStream().readAllBytes()
+            );
+        }
+        try (StorageFile range = storageService.find(
+                "file.bin",
+                path,
+                100,
+                20
+        ).orElseThrow()) {
+            assertEquals(0, range.getInputStream().readAllBytes().length);
+        }
+        assertTrue(storageService.find(
+                "notExisting.bin",
+                path,
+                0,
+                20
+        ).isEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    void findToStreamChannelAndFile() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        byte[] bytes = new byte[100_000];
+        new Random().nextBytes(bytes);
+        storageService.save(new StorageFile(
+                "file.bin",
+                path,
+                ContentType.APPLICATION_OCTET_STREAM.getMimeType(),
+                new ByteArrayInputStream(bytes)
+        ));
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        assertEquals(
+                OptionalLong.of(bytes.length),
+                storageService.findTo("file.bin", path, stream)
+        );
+        assertArrayEquals(bytes, stream.toByteArray());
+        ByteArrayOutputStream channel = new ByteArrayOutputStream();
+        assertEquals(
+                OptionalLong.of(bytes.length),
+                storageService.findTo(
+                        "file.bin",
+                        path,
+                        Channels.newChannel(channel)
+                )
+        );
+        assertArrayEquals(bytes, channel.toByteArray());
+        Path target = Files.createTempFile("storage", ".bin");
+        try {
+            assertEquals(
+                    OptionalLong.of(bytes.length),
+                    storageService.findTo("file.bin", path, target)
+            );
+            assertArrayEquals(bytes, Files.readAllBytes(target));
+        } finally {
+            Files.deleteIfExists(target);
+        }
+        assertTrue(storageService.findTo(
+                "notExisting.bin",
+                path,
+                stream
+        ).isEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    void findNotExistingFileWithoutPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            Optional<StorageFile> savedFile = storageService.find(
+                    "notExisting.txt"
+            );
+            assertTrue(savedFile.isEmpty());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findExistingFileWithPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            byte[] bytes = serviceAccount.readAllBytes();
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(bytes)
+            );
+            storageService.save(file);
+            Optional<StorageFile> savedFile = storageService.find(
+                    "file1.txt",
+                    path
+            );
+            assertTrue(savedFile.isPresent());
+            assertEquals(file.getFileName(), savedFile.get()
+                    .getFileName());
+            assertEquals(file.getPath(), savedFile.get()
+                    .getPath());
+            assertEquals(file.getContentType(), savedFile.get()
+                    .getContentType());
+            assertArrayEquals(
+                    bytes,
+                    savedFile.get().getInputStream().readAllBytes()
+            );
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findNotExistingFileWithPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            Optional<StorageFile> savedFile = storageService.find(
+                    "notExisting.txt",
+                    path
+            );
+            assertTrue(savedFile.isEmpty());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findAllInPath() {
+        try (InputStream serviceAccount1 = classLoader.getResourceAsStream(
+                "file1.txt"
+        );
+             InputStream serviceAccount2 = classLoader.getResourceAsStream(
+                     "file2.txt"
+             )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            StorageFile file1 = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount1
+            );
+            storageService.save(file1);
+            StorageFile file2 = new StorageFile(
+                    "file2.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount2
+            );
+            storageService.save(file2);
+            List<StorageFile> files = storageService.findAll(
+                    path,
+                    new io.github.ilyalisov.storage.config.Page(
+                            1,
+                            10
+                    ));
+            assertEquals(2, files.size());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findAllReadsContentOfListedFiles() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            byte[] bytes = serviceAccount.readAllBytes();
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(bytes)
+            );
+            storageService.save(file);
+            List<StorageFile> files = storageService.findAll(
+                    path,
+                    new io.github.ilyalisov.storage.config.Page(
+                            1,
+                            10
+                    )
+            );
+            assertEquals(1, files.size());
+            try (StorageFile found = files.get(0)) {
+                assertEquals(file.getFileName(), found.getFileName());
+                assertEquals(file.getPath(), found.getPath());
+                assertEquals(file.getContentType(), found.getContentType());
+                assertEquals(bytes.length, found.getSize());
+                assertArrayEquals(
+                        bytes,
+                        found.getInputStream().readAllBytes()
+                );
+            }
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findAllInPathWithCursor() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        for (String fileName : List.of("file1.txt", "file2.txt")) {
+            try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                    fileName
+            )) {
+                StorageFile file = new StorageFile(
+                        fileName,
+                        path,
+                        ContentType.TEXT_PLAIN.getMimeType(),
+                        serviceAccount
+                );
+                storageService.save(file);
+            }
+        }
+        List<String> fileNames = new ArrayList<>();
+        CursorPage page = new CursorPage(1);
+        while (page != null) {
+            FilePage files = storageService.findAll(path, page);
+            assertTrue(files.getFiles().size() <= 1);
+            files.getFiles().forEach(f -> fileNames.add(f.getFileName()));
+            page = files.getNext();
+        }
+        assertEquals(List.of("file1.txt", "file2.txt"), fileNames);
+    }
+
+    @Test
+    void streamAllFetchesPagesOnDemand() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        List<String> saved = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            String fileName = String.format("file%02d.txt", i);
+            storageService.save(new StorageFile(
+                    fileName,
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(new byte[]{1})
+            ));
+            saved.add(fileName);
+        }
+        AtomicInteger pages = new AtomicInteger();
+        StorageService counting = new DelegatingStorageService(storageService) {
+            @Override
+            public FilePage findAll(
+                    final Path folder,
+                    final CursorPage page
+            ) {
+                pages.incrementAndGet();
+                return super.findAll(folder, page);
+            }
+        };
+        List<String> first = counting.streamAll(path, 10)
+                .limit(15)
+                .map(StorageFile::getFileName)
+                .collect(Collectors.toList());
+        assertEquals(saved.subList(0, 15), first);
+        assertEquals(2, pages.get());
+        List<String> all = counting.streamAll(path, 10)
+                .map(StorageFile::getFileName)
+                .collect(Collectors.toList());
+        assertEquals(saved, all);
+    }
+
+    @Test
+    void publishAllFetchesPagesOnDemand() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        List<String> saved = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            String fileName = String.format("file%02d.txt", i);
+            storageService.save(new StorageFile(
+                    fileName,
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(new byte[]{1})
+            ));
+            saved.add(fileName);
+        }
+        AtomicInteger pages = new AtomicInteger();
+        StorageService counting = new DelegatingStorageService(storageService) {
+            @Override
+            public FilePage findAll(
+                    final Path folder,
+                    final CursorPage page
+            ) {
+                pages.incrementAndGet();
+                return super.findAll(folder, page);
+            }
+        };
+        List<String> received = new ArrayList<>();
+        AtomicReference<Flow.Subscription> subscription =
+                new AtomicReference<>();
+        AtomicBoolean completed = new AtomicBoolean();
+        counting.publishAll(path, 10).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(
+                    final Flow.Subscription s
+            ) {
+                subscription.set(s);
+            }
+
+            @Override
+            public void onNext(
+                    final StorageFile file
+            ) {
+                received.add(file.getFileName());
+            }
+
+            @Override
+            public void onError(
+                    final Throwable e
+            ) {
+                throw new AssertionError(e);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.set(true);
+            }
+        });
+        assertEquals(0, pages.get());
+        subscription.get().request(5);
+        assertEquals(saved.subList(0, 5), received);
+        assertEquals(1, pages.get());
+        subscription.get().request(10);
+        assertEquals(saved.subList(0, 15), received);
+        assertEquals(2, pages.get());
+        assertFalse(completed.get());
+        subscription.get().request(Long.MAX_VALUE);
+        assertEquals(saved, received);
+        assertEquals(3, pages.get());
+        assertTrue(completed.get());
+    }
+
+    @Test
+    @SneakyThrows
+    void findAllInNotExistingPath() {
+        Path path = Path.of("folder", UUID.randomUUID().toString());
+        List<StorageFile> files = storageService.findAll(
+                path,
+                new io.github.ilyalisov.storage.config.Page(
+                        1,
+                        10
+                )
+        );
+        assertEquals(0, files.size());
+    }
+
+    @Test
+    @SneakyThrows
+    void fileWithoutPathExists() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            boolean exists = storageService.exists("file1.txt");
+            assertTrue(exists);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void fileWithPathExists() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            boolean exists = storageService.exists(
+                    "file1.txt",
+                    path
+            );
+            assertTrue(exists);
+        }
+    }
+
+    @Test
+    void existsAllInFolderAndAcrossFolders() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        List<String> fileNames = new ArrayList<>();
+        Set<String> saved = new HashSet<>();
+        for (int i = 0; i < 40; i++) {
+            String fileName = storageService.fileName(
+                    path,
+                    "file" + i + ".txt"
+            );
+            fileNames.add(fileName);
+            if (i % 2 == 0) {
+                storageService.save(new StorageFile(
+                        "file" + i + ".txt",
+                        path,
+                        ContentType.TEXT_PLAIN.getMimeType(),
+                        new ByteArrayInputStream(new byte[]{1})
+                ));
+                saved.add(fileName);
+            }
+        }
+        storageService.save(new StorageFile(
+                "file.txt",
+                path.resolve("inner"),
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{1})
+        ));
+        fileNames.add(path + "/inner/file.txt");
+        saved.add(path + "/inner/file.txt");
+        fileNames.add(UUID.randomUUID() + ".txt");
+        assertEquals(saved, storageService.existsAll(fileNames));
+    }
+
+    @Test
+    @SneakyThrows
+    void saveKeepsContentEncoding() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        StorageFile file = new StorageFile(
+                "file.txt",
+                path,
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{1, 2, 3})
+        );
+        file.setContentEncoding("gzip");
+        storageService.save(file);
+        try (StorageFile found = storageService.find(
+                "file.txt",
+                path
+        ).orElseThrow()) {
+            assertEquals("gzip", found.getContentEncoding());
+        }
+        StorageFile listed = storageService.findAll(
+                path,
+                new CursorPage(10)
+        ).getFiles().get(0);
+        assertEquals("gzip", listed.getContentEncoding());
+    }
+
+    @Test
+    @SneakyThrows
+    void findIfChangedConfirmsCachedCopy() {
+        String fileName = UUID.randomUUID() + ".txt";
+        storageService.save(new StorageFile(
+                fileName,
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{1, 2, 3})
+        ));
+        StorageFile found = storageService.find(fileName).orElseThrow();
+        found.close();
+        assertEquals(3, found.getSize());
+        assertNotNull(found.getEtag());
+        assertNotNull(found.getLastModified());
+        ConditionalResult unchanged = storageService.findIfChanged(
+                fileName,
+                found.getEtag()
+        );
+        assertEquals(
+                ConditionalResult.Status.NOT_MODIFIED,
+                unchanged.getStatus()
+        );
+        assertNull(unchanged.getFile());
+        storageService.save(new StorageFile(
+                fileName,
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{4, 5, 6, 7})
+        ));
+        ConditionalResult changed = storageService.findIfChanged(
+                fileName,
+                found.getEtag()
+        );
+        assertEquals(ConditionalResult.Status.FOUND, changed.getStatus());
+        try (StorageFile file = changed.getFile()) {
+            assertNotEquals(found.getEtag(), file.getEtag());
+            assertArrayEquals(
+                    new byte[]{4, 5, 6, 7},
+                    file.getInputStream().readAllBytes()
+            );
+        }
+        assertEquals(
+                ConditionalResult.Status.NOT_FOUND,
+                storageService.findIfChanged(
+                        UUID.randomUUID() + ".txt",
+                        found.getEtag()
+                ).getStatus()
+        );
+    }
+
+    @Test
+    @SneakyThrows
+    void deleteExistingFileWithoutPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            storageService.delete(
+                    "file1.txt"
+            );
+            boolean exists = storageService.exists("file1.txt");
+            assertFalse(exists);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void deleteNotExistingFileWithoutPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            storageService.delete(
+                    "notExisting.txt"
+            );
+            boolean exists = storageService.exists("notExisting.txt");
+            assertFalse(exists);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void deleteExistingFileWithPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            storageService.delete(
+                    "file1.txt",
+                    path
+            );
+            boolean exists = storageService.exists(
+                    "file1.txt",
+                    path
+            );
+            assertFalse(exists);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void deleteNotExistingFileWithPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            storageService.delete(
+                    "notExisting.txt",
+                    path
+            );
+            boolean exists = storageService.exists(
+                    "notExisting.txt",
+                    path
+            );
+            assertFalse(exists);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void deleteExistingFolder() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            DeleteResult result = storageService.delete(
+                    path
+            );
+            assertEquals(1, result.getDeleted());
+            assertTrue(result.isSuccessful());
+            boolean exists = storageService.exists(
+                    "file1.txt",
+                    path
+            );
+            assertFalse(exists);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void saveReplacesExistingFile() {
+        storageService.save(new StorageFile(
+                "file1.txt",
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{1, 2, 3})
+        ));
+        storageService.save(new StorageFile(
+                "file1.txt",
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{4})
+        ));
+        try (StorageFile found = storageService.find("file1.txt")
+                .orElseThrow()) {
+            assertEquals(1, found.getSize());
+            assertArrayEquals(
+                    new byte[]{4},
+                    found.getInputStream().readAllBytes()
+            );
+        }
+        assertEquals(1, storageService.getUsedBytes());
+    }
+
+    @Test
+    @SneakyThrows
+    void evictFilesNotReadRecently() {
+        InMemoryStorageServiceImpl limitedService =
+                new InMemoryStorageServiceImpl(10);
+        for (int i = 1; i <= 2; i++) {
+            limitedService.save(new StorageFile(
+                    "file" + i + ".txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(new byte[4])
+            ));
+        }
+        limitedService.find("file1.txt");
+        limitedService.save(new StorageFile(
+                "file3.txt",
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[4])
+        ));
+        assertEquals(1, limitedService.getEvictions());
+        assertEquals(8, limitedService.getUsedBytes());
+        assertTrue(limitedService.exists("file1.txt"));
+        assertFalse(limitedService.exists("file2.txt"));
+        assertTrue(limitedService.exists("file3.txt"));
+    }
+
+    @Test
+    @SneakyThrows
+    void saveFileLargerThanLimitIsRejected() {
+        InMemoryStorageServiceImpl limitedService =
+                new InMemoryStorageServiceImpl(10);
+        StorageFile file = new StorageFile(
+                "file1.txt",
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[11])
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> limitedService.save(file)
+        );
+        assertEquals(0, limitedService.getUsedBytes());
+    }
+
+    @Test
+    void saveFileOfDeclaredSizeLargerThanLimitIsRejectedUnread() {
+        InMemoryStorageServiceImpl limitedService =
+                new InMemoryStorageServiceImpl(10);
+        ByteArrayInputStream content = new ByteArrayInputStream(new byte[11]);
+        StorageFile file = new StorageFile(
+                "file1.txt",
+                ContentType.TEXT_PLAIN.getMimeType(),
+                content
+        );
+        file.setSize(11);
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> limitedService.save(file)
+        );
+        assertEquals(11, content.available());
+        file.setSize(3L * 1024 * 1024 * 1024);
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> storageService.save(file)
+        );
+        assertEquals(11, content.available());
+    }
+
+    @Test
+    @SneakyThrows
+    void saveLargeFile() {
+        byte[] bytes = new byte[100_000];
+        new Random().nextBytes(bytes);
+        storageService.save(new StorageFile(
+                "file.bin",
+                ContentType.APPLICATION_OCTET_STREAM.getMimeType(),
+                new ByteArrayInputStream(bytes)
+        ));
+        try (StorageFile found = storageService.find("file.bin")
+                .orElseThrow()) {
+            assertEquals(bytes.length, found.getSize());
+            assertArrayEquals(bytes, found.getInputStream().readAllBytes());
+        }
+        assertEquals(bytes.length, storageService.getUsedBytes());
+    }
+
+    @Test
+    @SneakyThrows
+    void deleteNotExistingFolder() {
+        Path path = Path.of("folder", UUID.randomUUID().toString());
+        storageService.delete(
+                path
+        );
+        boolean exists = storageService.exists(
+                "file1.txt",
+                path
+        );
+        assertFalse(exists);
+    }
+
+}
@@ -0,0 +1,1195 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.ConditionalResult;
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.ExecutionMode;
+import io.github.ilyalisov.storage.config.FilePage;
+import io.github.ilyalisov.storage.config.Page;
+import io.github.ilyalisov.storage.config.SaveResult;
+import io.github.ilyalisov.storage.config.StorageFile;
+import io.github.ilyalisov.storage.config.StorageOptions;
+import lombok.SneakyThrows;
+import org.apache.http.entity.ContentType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocalFileStorageServiceImplTests {
+
+    private static LocalFileStorageServiceImpl storageService;
+
+    private static ClassLoader classLoader;
+
+    @TempDir
+    private Path root;
+
+    @BeforeAll
+    static void init() {
+        classLoader = LocalFileStorageServiceImplTests.class.getClassLoader();
+    }
+
+    @BeforeEach
+    void setup() {
+        storageService = new LocalFileStorageServiceImpl(root);
+    }
+
+    @Test
+    @SneakyThrows
+    void saveWithPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    Path.of("test", "innerFolder"),
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            Path path = storageService.save(file);
+            assertNotNull(path);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void saveWithoutPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            Path path = storageService.save(file);
+            assertNotNull(path);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void saveFromLocalFile() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        byte[] bytes = new byte[100_000];
+        new Random().nextBytes(bytes);
+        Path source = Files.createTempFile("storage", ".bin");
+        try {
+            Files.write(source, bytes);
+            StorageFile file = new StorageFile(
+                    "file.bin",
+                    path,
+                    ContentType.APPLICATION_OCTET_STREAM.getMimeType(),
+                    source
+            );
+            assertEquals(bytes.length, file.getSize());
+            storageService.save(file);
+        } finally {
+            Files.deleteIfExists(source);
+        }
+        try (StorageFile found = storageService.find("file.bin", path)
+                .orElseThrow()) {
+            assertEquals(
+                    ContentType.APPLICATION_OCTET_STREAM.getMimeType(),
+                    found.getContentType()
+            );
+            assertArrayEquals(bytes, found.getInputStream().readAllBytes());
+        }
+    }
+
+    @Test
+    void saveAllReportsResultsOfFiles() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        AtomicInteger index = new AtomicInteger();
+        List<SaveResult> results = storageService.saveAll(
+                Stream.generate(() -> new StorageFile(
+                                "file" + index.getAndIncrement() + ".txt",
+                                path,
+                                ContentType.TEXT_PLAIN.getMimeType(),
+                                new ByteArrayInputStream(new byte[]{1})
+                        ))
+                        .limit(20)
+        );
+        assertEquals(20, results.size());
+        assertTrue(results.stream().allMatch(SaveResult::isSuccessful));
+        assertEquals(
+                20,
+                storageService.findAll(path, new Page(1, 100)).size()
+        );
+    }
+
+    @Test
+    void saveAllDoesNotReadSourceAhead() {
+        LocalFileStorageServiceImpl limited = new LocalFileStorageServiceImpl(
+                root,
+                StorageOptions.builder()
+                        .concurrency(2)
+                        .maxBytesInFlight(2)
+                        .build()
+        );
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicInteger reported = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+        Iterator<StorageFile> source = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return pulled.get() < 50;
+            }
+
+            @Override
+            public StorageFile next() {
+                int ahead = pulled.incrementAndGet() - reported.get();
+                maxAhead.accumulateAndGet(ahead, Math::max);
+                return new StorageFile(
+                        "file" + pulled.get() + ".txt",
+                        pulled.get() == 25 ? Path.of("..") : Path.of("bulk"),
+                        ContentType.TEXT_PLAIN.getMimeType(),
+                        new ByteArrayInputStream(new byte[]{1})
+                );
+            }
+        };
+        List<SaveResult> failed = new ArrayList<>();
+        limited.saveAll(() -> source, result -> {
+            reported.incrementAndGet();
+            if (!result.isSuccessful()) {
+                failed.add(result);
+            }
+        });
+        assertEquals(50, reported.get());
+        assertTrue(maxAhead.get() <= 3);
+        assertEquals(1, failed.size());
+        assertEquals("../file25.txt", failed.get(0).getFileName());
+        assertInstanceOf(
+                IllegalArgumentException.class,
+                failed.get(0).getError()
+        );
+    }
+
+    @Test
+    void saveAllUploadsFilesOfUnknownSizeConcurrently() {
+        CountDownLatch concurrent = new CountDownLatch(2);
+        List<StorageFile> files = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            InputStream content = new InputStream() {
+                private boolean started;
+
+                @Override
+                @SneakyThrows
+                public int read() {
+                    if (!started) {
+                        started = true;
+                        concurrent.countDown();
+                        if (!concurrent.await(10, TimeUnit.SECONDS)) {
+                            throw new IOException(
+                                    "Uploads are not concurrent."
+                            );
+                        }
+                    }
+                    return -1;
+                }
+            };
+            files.add(new StorageFile(
+                    "file" + i + ".txt",
+                    Path.of("concurrent"),
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    content
+            ));
+        }
+        List<SaveResult> results = new LocalFileStorageServiceImpl(root)
+                .saveAll(files);
+        assertEquals(4, results.size());
+        assertTrue(results.stream().allMatch(SaveResult::isSuccessful));
+    }
+
+    @Test
+    void saveAllThroughDecoratorUsesOptionsOfDelegate() {
+        StorageOptions options = StorageOptions.builder()
+                .concurrency(1)
+                .build();
+        LocalFileStorageServiceImpl limited = new LocalFileStorageServiceImpl(
+                root,
+                options
+        );
+        AtomicInteger saving = new AtomicInteger();
+        AtomicInteger maxSaving = new AtomicInteger();
+        AtomicInteger saved = new AtomicInteger();
+        StorageService decorated = new DelegatingStorageService(limited) {
+            @Override
+            @SneakyThrows
+            public Path save(
+                    final StorageFile file
+            ) {
+                maxSaving.accumulateAndGet(
+                        saving.incrementAndGet(),
+                        Math::max
+                );
+                try {
+                    Thread.sleep(10);
+                    saved.incrementAndGet();
+                    return super.save(file);
+                } finally {
+                    saving.decrementAndGet();
+                }
+            }
+        };
+        assertSame(options, decorated.getOptions());
+        List<StorageFile> files = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            files.add(new StorageFile(
+                    "file" + i + ".txt",
+                    Path.of("decorated"),
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(new byte[]{1})
+            ));
+        }
+        List<SaveResult> results = decorated.saveAll(files);
+        assertEquals(8, results.size());
+        assertTrue(results.stream().allMatch(SaveResult::isSuccessful));
+        assertEquals(8, saved.get());
+        assertEquals(1, maxSaving.get());
+    }
+
+    @Test
+    @SneakyThrows
+    void findExistingFileWithoutPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            byte[] bytes = serviceAccount.readAllBytes();
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(bytes)
+            );
+            storageService.save(file);
+            Optional<StorageFile> savedFile = storageService.find(
+                    "file1.txt"
+            );
+            assertFalse(savedFile.isEmpty());
+            assertEquals(file.getFileName(), savedFile.get()
+                    .getFileName());
+            assertEquals(file.getPath(), savedFile.get()
+                    .getPath());
+            assertEquals(file.getContentType(), savedFile.get()
+                    .getContentType());
+            assertArrayEquals(
+                    bytes,
+                    savedFile.get().getInputStream().readAllBytes()
+            );
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findExistingFileWithBufferedContent() {
+        LocalFileStorageServiceImpl bufferedService =
+                new LocalFileStorageServiceImpl(
+                        root,
+                        StorageOptions.builder()
+                                .bufferContent(true)
+                                .build()
+                );
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            byte[] bytes = serviceAccount.readAllBytes();
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(bytes)
+            );
+            bufferedService.save(file);
+            Optional<StorageFile> savedFile = bufferedService.find(
+                    "file1.txt"
+            );
+            assertTrue(savedFile.isPresent());
+            assertInstanceOf(
+                    ByteArrayInputStream.class,
+                    savedFile.get().getInputStream()
+            );
+            assertArrayEquals(
+                    bytes,
+                    savedFile.get().getInputStream().readAllBytes()
+            );
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findRangeOfExistingFile() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        byte[] bytes = new byte[100];
+        new Random().nextBytes(bytes);
+        StorageFile file = new StorageFile(
+                "file.bin",
+                path,
+                ContentType.APPLICATION_OCTET_STREAM.getMimeType(),
+                new ByteArrayInputStream(bytes)
+        );
+        storageService.save(file);
+        try (StorageFile range = storageService.find(
+                "file.bin",
+                path,
+                10,
+                20
+        ).orElseThrow()) {
+            assertEquals(20, range.getSize());
+            assertEquals(file.getContentType(), range.getContentType());
+            assertArrayEquals(
+                    Arrays.copyOfRange(bytes, 10, 30),
+                    range.getInputStream().readAllBytes()
+            );
+        }
+        try (StorageFile range = storageService.find(
+                "file.bin",
+                path,
+                90,
+                20
+        ).orElseThrow()) {
+            assertArrayEquals(
+                    Arrays.copyOfRange(bytes, 90, 100),
+                    range.getInputStream().readAllBytes()
+            );
+        }
+        try (StorageFile range = storageService.find(
+                "file.bin",
+                path,
+                100,
+                20
+        ).orElseThrow()) {
+            assertEquals(0, range.getInputStream().readAllBytes().length);
+        }
+        assertTrue(storageService.find(
+                "notExisting.bin",
+                path,
+                0,
+                20
+        ).isEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    void findToStreamChannelAndFile() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        byte[] bytes = new byte[100_000];
+        new Random().nextBytes(bytes);
+        storageService.save(new StorageFile(
+                "file.bin",
+                path,
+                ContentType.APPLICATION_OCTET_STREAM.getMimeType(),
+                new ByteArrayInputStream(bytes)
+        ));
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        assertEquals(
+                OptionalLong.of(bytes.length),
+                storageService.findTo("file.bin", path, stream)
+        );
+        assertArrayEquals(bytes, stream.toByteArray());
+        ByteArrayOutputStream channel = new ByteArrayOutputStream();
+        assertEquals(
+                OptionalLong.of(bytes.length),
+                storageService.findTo(
+                        "file.bin",
+                        path,
+                        Channels.newChannel(channel)
+                )
+        );
+        assertArrayEquals(bytes, channel.toByteArray());
+        Path target = Files.createTempFile("storage", ".bin");
+        try {
+            assertEquals(
+                    OptionalLong.of(bytes.length),
+                    storageService.findTo("file.bin", path, target)
+            );
+            assertArrayEquals(bytes, Files.readAllBytes(target));
+        } finally {
+            Files.deleteIfExists(target);
+        }
+        assertTrue(storageService.findTo(
+                "notExisting.bin",
+                path,
+                stream
+        ).isEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    void findNotExistingFileWithoutPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            Optional<StorageFile> savedFile = storageService.find(
+                    "notExisting.txt"
+            );
+            assertTrue(savedFile.isEmpty());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findExistingFileWithPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            byte[] bytes = serviceAccount.readAllBytes();
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(bytes)
+            );
+            storageService.save(file);
+            Optional<StorageFile> savedFile = storageService.find(
+                    "file1.txt",
+                    path
+            );
+            assertTrue(savedFile.isPresent());
+            assertEquals(file.getFileName(), savedFile.get()
+                    .getFileName());
+            assertEquals(file.getPath(), savedFile.get()
+                    .getPath());
+            assertEquals(file.getContentType(), savedFile.get()
+                    .getContentType());
+            assertArrayEquals(
+                    bytes,
+                    savedFile.get().getInputStream().readAllBytes()
+            );
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findNotExistingFileWithPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            Optional<StorageFile> savedFile = storageService.find(
+                    "notExisting.txt",
+                    path
+            );
+            assertTrue(savedFile.isEmpty());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findAllInPath() {
+        try (InputStream serviceAccount1 = classLoader.getResourceAsStream(
+                "file1.txt"
+        );
+             InputStream serviceAccount2 = classLoader.getResourceAsStream(
+                     "file2.txt"
+             )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            StorageFile file1 = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount1
+            );
+            storageService.save(file1);
+            StorageFile file2 = new StorageFile(
+                    "file2.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount2
+            );
+            storageService.save(file2);
+            List<StorageFile> files = storageService.findAll(
+                    path,
+                    new io.github.ilyalisov.storage.config.Page(
+                            1,
+                            10
+                    ));
+            assertEquals(2, files.size());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findAllReadsContentOfListedFiles() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            byte[] bytes = serviceAccount.readAllBytes();
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(bytes)
+            );
+            storageService.save(file);
+            List<StorageFile> files = storageService.findAll(
+                    path,
+                    new io.github.ilyalisov.storage.config.Page(
+                            1,
+                            10
+                    )
+            );
+            assertEquals(1, files.size());
+            try (StorageFile found = files.get(0)) {
+                assertEquals(file.getFileName(), found.getFileName());
+                assertEquals(file.getPath(), found.getPath());
+                assertEquals(file.getContentType(), found.getContentType());
+                assertEquals(bytes.length, found.getSize());
+                assertArrayEquals(
+                        bytes,
+                        found.getInputStream().readAllBytes()
+                );
+            }
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findAllInPathWithCursor() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        for (String fileName : List.of("file1.txt", "file2.txt")) {
+            try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                    fileName
+            )) {
+                StorageFile file = new StorageFile(
+                        fileName,
+                        path,
+                        ContentType.TEXT_PLAIN.getMimeType(),
+                        serviceAccount
+                );
+                storageService.save(file);
+            }
+        }
+        List<String> fileNames = new ArrayList<>();
+        CursorPage page = new CursorPage(1);
+        while (page != null) {
+            FilePage files = storageService.findAll(path, page);
+            assertTrue(files.getFiles().size() <= 1);
+            files.getFiles().forEach(f -> fileNames.add(f.getFileName()));
+            page = files.getNext();
+        }
+        assertEquals(List.of("file1.txt", "file2.txt"), fileNames);
+    }
+
+    @Test
+    @SneakyThrows
+    void findAllInNestedFoldersWithCursorKeepsOrderOfNames() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        List<String> names = List.of(
+                "a/b.txt",
+                "a-b.txt",
+                "a.txt",
+                "b/c/d.txt",
+                "b/c.txt",
+                "c.txt"
+        );
+        for (String name : names) {
+            storageService.save(new StorageFile(
+                    name,
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(new byte[]{1})
+            ));
+        }
+        List<String> listed = new ArrayList<>();
+        CursorPage page = new CursorPage(2);
+        while (page != null) {
+            FilePage files = storageService.findAll(path, page);
+            assertTrue(files.getFiles().size() <= 2);
+            files.getFiles().forEach(f -> listed.add(
+                    path.relativize(f.getPath().resolve(f.getFileName()))
+                            .toString()
+            ));
+            page = files.getNext();
+        }
+        List<String> expected = new ArrayList<>(names);
+        expected.sort(null);
+        assertEquals(expected, listed);
+        assertEquals(
+                expected.subList(2, 4),
+                storageService.findAll(path, new Page(2, 2)).stream()
+                        .map(f -> path.relativize(
+                                f.getPath().resolve(f.getFileName())
+                        ).toString())
+                        .toList()
+        );
+    }
+
+    @Test
+    @SneakyThrows
+    void publishAllAndStreamAllListFolder() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        List<String> saved = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            String fileName = String.format("file%02d.txt", i);
+            storageService.save(new StorageFile(
+                    fileName,
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(new byte[]{1})
+            ));
+            saved.add(fileName);
+        }
+        List<String> received = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        storageService.publishAll(path, 10).subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(
+                    final Flow.Subscription s
+            ) {
+                subscription = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(
+                    final StorageFile file
+            ) {
+                received.add(file.getFileName());
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(
+                    final Throwable e
+            ) {
+                completed.completeExceptionally(e);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.complete(null);
+            }
+        });
+        completed.get(1, TimeUnit.MINUTES);
+        assertEquals(saved, received);
+        List<String> streamed = storageService.streamAll(path, 10)
+                .map(StorageFile::getFileName)
+                .collect(Collectors.toList());
+        assertEquals(saved, streamed);
+    }
+
+    @Test
+    @SneakyThrows
+    void findAllInNotExistingPath() {
+        Path path = Path.of("folder", UUID.randomUUID().toString());
+        List<StorageFile> files = storageService.findAll(
+                path,
+                new io.github.ilyalisov.storage.config.Page(
+                        1,
+                        10
+                )
+        );
+        assertEquals(0, files.size());
+    }
+
+    @Test
+    @SneakyThrows
+    void fileWithoutPathExists() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            boolean exists = storageService.exists("file1.txt");
+            assertTrue(exists);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void fileWithPathExists() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            boolean exists = storageService.exists(
+                    "file1.txt",
+                    path
+            );
+            assertTrue(exists);
+        }
+    }
+
+    @Test
+    void existsAllInFolderAndAcrossFolders() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        List<String> fileNames = new ArrayList<>();
+        Set<String> saved = new HashSet<>();
+        for (int i = 0; i < 40; i++) {
+            String fileName = storageService.fileName(
+                    path,
+                    "file" + i + ".txt"
+            );
+            fileNames.add(fileName);
+            if (i % 2 == 0) {
+                storageService.save(new StorageFile(
+                        "file" + i + ".txt",
+                        path,
+                        ContentType.TEXT_PLAIN.getMimeType(),
+                        new ByteArrayInputStream(new byte[]{1})
+                ));
+                saved.add(fileName);
+            }
+        }
+        storageService.save(new StorageFile(
+                "file.txt",
+                path.resolve("inner"),
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{1})
+        ));
+        fileNames.add(path + "/inner/file.txt");
+        saved.add(path + "/inner/file.txt");
+        fileNames.add(UUID.randomUUID() + ".txt");
+        assertEquals(saved, storageService.existsAll(fileNames));
+    }
+
+    @Test
+    @SneakyThrows
+    void saveKeepsContentEncoding() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        StorageFile file = new StorageFile(
+                "file.txt",
+                path,
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{1, 2, 3})
+        );
+        file.setContentEncoding("gzip");
+        storageService.save(file);
+        try (StorageFile found = storageService.find(
+                "file.txt",
+                path
+        ).orElseThrow()) {
+            assertEquals("gzip", found.getContentEncoding());
+        }
+        StorageFile listed = storageService.findAll(
+                path,
+                new CursorPage(10)
+        ).getFiles().get(0);
+        assertEquals("gzip", listed.getContentEncoding());
+    }
+
+    @Test
+    @SneakyThrows
+    void findIfChangedConfirmsCachedCopy() {
+        String fileName = UUID.randomUUID() + ".txt";
+        storageService.save(new StorageFile(
+                fileName,
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{1, 2, 3})
+        ));
+        StorageFile found = storageService.find(fileName).orElseThrow();
+        found.close();
+        assertEquals(3, found.getSize());
+        assertNotNull(found.getEtag());
+        assertNotNull(found.getLastModified());
+        ConditionalResult unchanged = storageService.findIfChanged(
+                fileName,
+                found.getEtag()
+        );
+        assertEquals(
+                ConditionalResult.Status.NOT_MODIFIED,
+                unchanged.getStatus()
+        );
+        assertNull(unchanged.getFile());
+        storageService.save(new StorageFile(
+                fileName,
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{4, 5, 6, 7})
+        ));
+        ConditionalResult changed = storageService.findIfChanged(
+                fileName,
+                found.getEtag()
+        );
+        assertEquals(ConditionalResult.Status.FOUND, changed.getStatus());
+        try (StorageFile file = changed.getFile()) {
+            assertNotEquals(found.getEtag(), file.getEtag());
+            assertArrayEquals(
+                    new byte[]{4, 5, 6, 7},
+                    file.getInputStream().readAllBytes()
+            );
+        }
+        assertEquals(
+                ConditionalResult.Status.NOT_FOUND,
+                storageService.findIfChanged(
+                        UUID.randomUUID() + ".txt",
+                        found.getEtag()
+                ).getStatus()
+        );
+    }
+
+    @Test
+    @SneakyThrows
+    void deleteExistingFileWithoutPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            storageService.delete(
+                    "file1.txt"
+            );
+            boolean exists = storageService.exists("file1.txt");
+            assertFalse(exists);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void deleteNotExistingFileWithoutPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            storageService.delete(
+                    "notExisting.txt"
+            );
+            boolean exists = storageService.exists("notExisting.txt");
+            assertFalse(exists);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void deleteExistingFileWithPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            storageService.delete(
+                    "file1.txt",
+                    path
+            );
+            boolean exists = storageService.exists(
+                    "file1.txt",
+                    path
+            );
+            assertFalse(exists);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void deleteNotExistingFileWithPath() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            storageService.delete(
+                    "notExisting.txt",
+                    path
+            );
+            boolean exists = storageService.exists(
+                    "notExisting.txt",
+                    path
+            );
+            assertFalse(exists);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void deleteExistingFolder() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    serviceAccount
+            );
+            storageService.save(file);
+            DeleteResult result = storageService.delete(
+                    path
+            );
+            assertEquals(1, result.getDeleted());
+            assertTrue(result.isSuccessful());
+            boolean exists = storageService.exists(
+                    "file1.txt",
+                    path
+            );
+            assertFalse(exists);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void saveFindAndDeleteAsync() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            byte[] bytes = serviceAccount.readAllBytes();
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(bytes)
+            );
+            storageService.saveAsync(file).join();
+            assertTrue(storageService.existsAsync("file1.txt", path).join());
+            Optional<StorageFile> savedFile = storageService.findAsync(
+                    "file1.txt",
+                    path
+            ).join();
+            assertTrue(savedFile.isPresent());
+            try (StorageFile found = savedFile.get()) {
+                assertArrayEquals(
+                        bytes,
+                        found.getInputStream().readAllBytes()
+                );
+            }
+            storageService.deleteAsync("file1.txt", path).join();
+            assertFalse(storageService.existsAsync("file1.txt", path).join());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findAllAndDeleteFolderOnVirtualThreads() {
+        LocalFileStorageServiceImpl virtualService =
+                new LocalFileStorageServiceImpl(
+                        root,
+                        StorageOptions.builder()
+                                .executionMode(ExecutionMode.VIRTUAL_THREADS)
+                                .concurrency(2)
+                                .build()
+                );
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        for (int i = 0; i < 3; i++) {
+            virtualService.save(new StorageFile(
+                    "file" + i + ".txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(new byte[]{(byte) i})
+            ));
+        }
+        List<StorageFile> files = virtualService.findAll(
+                path,
+                new io.github.ilyalisov.storage.config.Page(
+                        1,
+                        10
+                )
+        );
+        assertEquals(3, files.size());
+        DeleteResult result = virtualService.delete(path);
+        assertEquals(3, result.getDeleted());
+        assertTrue(result.isSuccessful());
+    }
+
+    @Test
+    @SneakyThrows
+    void saveReplacesExistingFile() {
+        storageService.save(new StorageFile(
+                "file1.txt",
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{1, 2, 3})
+        ));
+        storageService.save(new StorageFile(
+                "file1.txt",
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{4})
+        ));
+        try (StorageFile found = storageService.find("file1.txt")
+                .orElseThrow()) {
+            assertEquals(1, found.getSize());
+            assertArrayEquals(
+                    new byte[]{4},
+                    found.getInputStream().readAllBytes()
+            );
+        }
+        try (var files = Files.list(root)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void saveOutsideOfRootIsRejected() {
+        StorageFile file = new StorageFile(
+                "file1.txt",
+                Path.of(".."),
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{1})
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> storageService.save(file)
+        );
+    }
+
+    @Test
+    @SneakyThrows
+    void deleteFolderRemovesEmptyDirectories() {
+        Path path = Path.of("folder", "inner");
+        storageService.save(new StorageFile(
+                "file1.txt",
+                path,
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{1})
+        ));
+        storageService.delete(Path.of("folder"));
+        assertFalse(Files.exists(root.resolve("folder")));
+    }
+
+    @Test
+    @SneakyThrows
+    void deleteNotExistingFolder() {
+        Path path = Path.of("folder", UUID.randomUUID().toString());
+        storageService.delete(
+                path
+        );
+        boolean exists = storageService.exists(
+                "file1.txt",
+                path
+        );
+        assertFalse(exists);
+    }
+
+}
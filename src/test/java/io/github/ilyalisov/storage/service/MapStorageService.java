@@ -0,0 +1,196 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.FilePage;
+import io.github.ilyalisov.storage.config.Page;
+import io.github.ilyalisov.storage.config.StorageFile;
+import lombok.SneakyThrows;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * StorageService backed by map, which counts calls to backend.
+ */
+class MapStorageService implements StorageService {
+
+    final Map<String, byte[]> contents = new ConcurrentSkipListMap<>();
+
+    final Map<String, String> contentTypes = new ConcurrentSkipListMap<>();
+
+    final AtomicInteger finds = new AtomicInteger();
+
+    final AtomicInteger existsChecks = new AtomicInteger();
+
+    volatile CountDownLatch gate = new CountDownLatch(0);
+
+    volatile CountDownLatch arrived = new CountDownLatch(0);
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName
+    ) {
+        finds.incrementAndGet();
+        pass();
+        byte[] content = contents.get(fileName);
+        if (content == null) {
+            return Optional.empty();
+        }
+        StorageFile file = new StorageFile(
+                fileName,
+                contentTypes.get(fileName),
+                new ByteArrayInputStream(content)
+        );
+        file.setSize(content.length);
+        return Optional.of(file);
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final Path path
+    ) {
+        return find(fileName(path, fileName));
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final long offset,
+            final long length
+    ) {
+        finds.incrementAndGet();
+        pass();
+        byte[] content = contents.get(fileName);
+        if (content == null) {
+            return Optional.empty();
+        }
+        int start = (int) Math.min(offset, content.length);
+        int end = (int) Math.min(content.length, start + length);
+        StorageFile file = new StorageFile(
+                fileName,
+                contentTypes.get(fileName),
+                new ByteArrayInputStream(content, start, end - start)
+        );
+        file.setSize(end - start);
+        return Optional.of(file);
+    }
+
+    @Override
+    public Optional<StorageFile> find(
+            final String fileName,
+            final Path path,
+            final long offset,
+            final long length
+    ) {
+        return find(fileName(path, fileName), offset, length);
+    }
+
+    @Override
+    public List<StorageFile> findAll(
+            final Path path,
+            final Page page
+    ) {
+        return contents.keySet().stream()
+                .filter(key -> key.startsWith(path + "/"))
+                .skip(page.offset())
+                .limit(page.getPageSize())
+                .map(key -> find(key).orElseThrow())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public FilePage findAll(
+            final Path path,
+            final CursorPage page
+    ) {
+        List<StorageFile> files = contents.keySet().stream()
+                .filter(key -> key.startsWith(path + "/"))
+                .filter(key -> page.getCursor() == null
+                        || key.compareTo(page.getCursor()) > 0)
+                .limit(page.getPageSize())
+                .map(key -> find(key).orElseThrow())
+                .collect(Collectors.toList());
+        CursorPage next = null;
+        if (files.size() == page.getPageSize()) {
+            StorageFile last = files.get(files.size() - 1);
+            next = new CursorPage(
+                    fileName(last.getPath(), last.getFileName()),
+                    page.getPageSize()
+            );
+        }
+        return new FilePage(files, next);
+    }
+
+    @Override
+    public boolean exists(
+            final String fileName
+    ) {
+        existsChecks.incrementAndGet();
+        pass();
+        return contents.containsKey(fileName);
+    }
+
+    @Override
+    public boolean exists(
+            final String fileName,
+            final Path path
+    ) {
+        return exists(fileName(path, fileName));
+    }
+
+    @Override
+    @SneakyThrows
+    public Path save(
+            final StorageFile file
+    ) {
+        String fileName = fileName(file.getPath(), file.getFileName());
+        contents.put(fileName, file.getInputStream().readAllBytes());
+        if (file.getContentType() != null) {
+            contentTypes.put(fileName, file.getContentType());
+        }
+        return Path.of(fileName);
+    }
+
+    @Override
+    public void delete(
+            final String fileName
+    ) {
+        contents.remove(fileName);
+        contentTypes.remove(fileName);
+    }
+
+    @Override
+    public void delete(
+            final String fileName,
+            final Path path
+    ) {
+        delete(fileName(path, fileName));
+    }
+
+    @Override
+    public DeleteResult delete(
+            final Path path
+    ) {
+        List<String> keys = contents.keySet().stream()
+                .filter(key -> key.startsWith(path + "/"))
+                .collect(Collectors.toList());
+        keys.forEach(this::delete);
+        return new DeleteResult(keys.size(), List.of());
+    }
+
+    @SneakyThrows
+    private void pass() {
+        arrived.countDown();
+        gate.await();
+    }
+
+}
@@ -1,6 +1,14 @@
 package io.github.ilyalisov.storage.service;
 
+import io.github.ilyalisov.storage.config.ConditionalResult;
+import io.github.ilyalisov.storage.config.CursorPage;
+import io.github.ilyalisov.storage.config.DeleteResult;
+import io.github.ilyalisov.storage.config.ExecutionMode;
+import io.github.ilyalisov.storage.config.FilePage;
+import io.github.ilyalisov.storage.config.Page;
+import io.github.ilyalisov.storage.config.SaveResult;
 import io.github.ilyalisov.storage.config.StorageFile;
+import io.github.ilyalisov.storage.config.StorageOptions;
 import lombok.SneakyThrows;
 import org.apache.http.entity.ContentType;
 import org.junit.jupiter.api.BeforeAll;
@@ -12,16 +20,35 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Testcontainers
@@ -88,6 +115,115 @@ public class MinIOStorageServiceImplTests {
         }
     }
 
+    @Test
+    @SneakyThrows
+    void saveStreamWithUnknownLengthInParts() {
+        MinIOStorageServiceImpl multipartService = new MinIOStorageServiceImpl(
+                "http://" + minio.getHost() + ":" + minio.getMappedPort(9000),
+                "rootUser",
+                "rootPassword",
+                "bucket",
+                StorageOptions.builder()
+                        .partSize(5 * 1024 * 1024)
+                        .parallelParts(2)
+                        .build()
+        );
+        byte[] bytes = new byte[12 * 1024 * 1024];
+        new Random().nextBytes(bytes);
+        StorageFile file = new StorageFile(
+                "file.bin",
+                ContentType.APPLICATION_OCTET_STREAM.getMimeType(),
+                new ByteArrayInputStream(bytes)
+        );
+        multipartService.save(file);
+        Optional<StorageFile> savedFile = multipartService.find("file.bin");
+        assertTrue(savedFile.isPresent());
+        try (InputStream content = savedFile.get().getInputStream()) {
+            assertArrayEquals(bytes, content.readAllBytes());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void saveFromLocalFile() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        byte[] bytes = new byte[100_000];
+        new Random().nextBytes(bytes);
+        Path source = Files.createTempFile("storage", ".bin");
+        try {
+            Files.write(source, bytes);
+            StorageFile file = new StorageFile(
+                    "file.bin",
+                    path,
+                    ContentType.APPLICATION_OCTET_STREAM.getMimeType(),
+                    source
+            );
+            assertEquals(bytes.length, file.getSize());
+            storageService.save(file);
+        } finally {
+            Files.deleteIfExists(source);
+        }
+        try (StorageFile found = storageService.find("file.bin", path)
+                .orElseThrow()) {
+            assertEquals(
+                    ContentType.APPLICATION_OCTET_STREAM.getMimeType(),
+                    found.getContentType()
+            );
+            assertArrayEquals(bytes, found.getInputStream().readAllBytes());
+        }
+    }
+
+    @Test
+    void findAllDoesNotListSiblingFolderWithSamePrefix() {
+        String folder = UUID.randomUUID().toString();
+        for (String path : List.of(folder, folder + "bar")) {
+            storageService.save(new StorageFile(
+                    "file.txt",
+                    Path.of(path),
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(new byte[]{1})
+            ));
+        }
+        assertEquals(
+                1,
+                storageService.findAll(Path.of(folder), new Page(1, 10))
+                        .size()
+        );
+        assertEquals(
+                1,
+                storageService.findAll(Path.of(folder), new CursorPage(10))
+                        .getFiles()
+                        .size()
+        );
+    }
+
+    @Test
+    void saveAllReportsResultsOfFiles() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        AtomicInteger index = new AtomicInteger();
+        List<SaveResult> results = storageService.saveAll(
+                Stream.generate(() -> new StorageFile(
+                                "file" + index.getAndIncrement() + ".txt",
+                                path,
+                                ContentType.TEXT_PLAIN.getMimeType(),
+                                new ByteArrayInputStream(new byte[]{1})
+                        ))
+                        .limit(20)
+        );
+        assertEquals(20, results.size());
+        assertTrue(results.stream().allMatch(SaveResult::isSuccessful));
+        assertEquals(
+                20,
+                storageService.findAll(path, new Page(1, 100)).size()
+        );
+    }
+
     @Test
     @SneakyThrows
     void findExistingFileWithoutPath() {
@@ -118,6 +254,147 @@ public class MinIOStorageServiceImplTests {
         }
     }
 
+    @Test
+    @SneakyThrows
+    void findExistingFileWithBufferedContent() {
+        MinIOStorageServiceImpl bufferedService = new MinIOStorageServiceImpl(
+                "http://" + minio.getHost() + ":" + minio.getMappedPort(9000),
+                "rootUser",
+                "rootPassword",
+                "bucket",
+                StorageOptions.builder()
+                        .bufferContent(true)
+                        .build()
+        );
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            byte[] bytes = serviceAccount.readAllBytes();
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(bytes)
+            );
+            bufferedService.save(file);
+            Optional<StorageFile> savedFile = bufferedService.find(
+                    "file1.txt"
+            );
+            assertTrue(savedFile.isPresent());
+            assertInstanceOf(
+                    ByteArrayInputStream.class,
+                    savedFile.get().getInputStream()
+            );
+            assertArrayEquals(
+                    bytes,
+                    savedFile.get().getInputStream().readAllBytes()
+            );
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findRangeOfExistingFile() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        byte[] bytes = new byte[100];
+        new Random().nextBytes(bytes);
+        StorageFile file = new StorageFile(
+                "file.bin",
+                path,
+                ContentType.APPLICATION_OCTET_STREAM.getMimeType(),
+                new ByteArrayInputStream(bytes)
+        );
+        storageService.save(file);
+        try (StorageFile range = storageService.find(
+                "file.bin",
+                path,
+                10,
+                20
+        ).orElseThrow()) {
+            assertEquals(20, range.getSize());
+            assertEquals(file.getContentType(), range.getContentType());
+            assertArrayEquals(
+                    Arrays.copyOfRange(bytes, 10, 30),
+                    range.getInputStream().readAllBytes()
+            );
+        }
+        try (StorageFile range = storageService.find(
+                "file.bin",
+                path,
+                90,
+                20
+        ).orElseThrow()) {
+            assertArrayEquals(
+                    Arrays.copyOfRange(bytes, 90, 100),
+                    range.getInputStream().readAllBytes()
+            );
+        }
+        try (StorageFile range = storageService.find(
+                "file.bin",
+                path,
+                100,
+                20
+        ).orElseThrow()) {
+            assertEquals(0, range.getInputStream().readAllBytes().length);
+        }
+        assertTrue(storageService.find(
+                "notExisting.bin",
+                path,
+                0,
+                20
+        ).isEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    void findToStreamChannelAndFile() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        byte[] bytes = new byte[100_000];
+        new Random().nextBytes(bytes);
+        storageService.save(new StorageFile(
+                "file.bin",
+                path,
+                ContentType.APPLICATION_OCTET_STREAM.getMimeType(),
+                new ByteArrayInputStream(bytes)
+        ));
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        assertEquals(
+                OptionalLong.of(bytes.length),
+                storageService.findTo("file.bin", path, stream)
+        );
+        assertArrayEquals(bytes, stream.toByteArray());
+        ByteArrayOutputStream channel = new ByteArrayOutputStream();
+        assertEquals(
+                OptionalLong.of(bytes.length),
+                storageService.findTo(
+                        "file.bin",
+                        path,
+                        Channels.newChannel(channel)
+                )
+        );
+        assertArrayEquals(bytes, channel.toByteArray());
+        Path target = Files.createTempFile("storage", ".bin");
+        try {
+            assertEquals(
+                    OptionalLong.of(bytes.length),
+                    storageService.findTo("file.bin", path, target)
+            );
+            assertArrayEquals(bytes, Files.readAllBytes(target));
+        } finally {
+            Files.deleteIfExists(target);
+        }
+        assertTrue(storageService.findTo(
+                "notExisting.bin",
+                path,
+                stream
+        ).isEmpty());
+    }
+
     @Test
     @SneakyThrows
     void findNotExistingFileWithoutPath() {
@@ -235,6 +512,135 @@ public class MinIOStorageServiceImplTests {
         }
     }
 
+    @Test
+    @SneakyThrows
+    void findAllReadsContentOfListedFiles() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            byte[] bytes = serviceAccount.readAllBytes();
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(bytes)
+            );
+            storageService.save(file);
+            List<StorageFile> files = storageService.findAll(
+                    path,
+                    new io.github.ilyalisov.storage.config.Page(
+                            1,
+                            10
+                    )
+            );
+            assertEquals(1, files.size());
+            try (StorageFile found = files.get(0)) {
+                assertEquals(file.getFileName(), found.getFileName());
+                assertEquals(file.getPath(), found.getPath());
+                assertEquals(file.getContentType(), found.getContentType());
+                assertEquals(bytes.length, found.getSize());
+                assertArrayEquals(
+                        bytes,
+                        found.getInputStream().readAllBytes()
+                );
+            }
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findAllInPathWithCursor() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        for (String fileName : List.of("file1.txt", "file2.txt")) {
+            try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                    fileName
+            )) {
+                StorageFile file = new StorageFile(
+                        fileName,
+                        path,
+                        ContentType.TEXT_PLAIN.getMimeType(),
+                        serviceAccount
+                );
+                storageService.save(file);
+            }
+        }
+        List<String> fileNames = new ArrayList<>();
+        CursorPage page = new CursorPage(1);
+        while (page != null) {
+            FilePage files = storageService.findAll(path, page);
+            assertTrue(files.getFiles().size() <= 1);
+            files.getFiles().forEach(f -> fileNames.add(f.getFileName()));
+            page = files.getNext();
+        }
+        assertEquals(List.of("file1.txt", "file2.txt"), fileNames);
+    }
+
+    @Test
+    @SneakyThrows
+    void publishAllAndStreamAllListFolder() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        List<String> saved = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            String fileName = String.format("file%02d.txt", i);
+            storageService.save(new StorageFile(
+                    fileName,
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(new byte[]{1})
+            ));
+            saved.add(fileName);
+        }
+        List<String> received = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        storageService.publishAll(path, 10).subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(
+                    final Flow.Subscription s
+            ) {
+                subscription = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(
+                    final StorageFile file
+            ) {
+                received.add(file.getFileName());
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(
+                    final Throwable e
+            ) {
+                completed.completeExceptionally(e);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.complete(null);
+            }
+        });
+        completed.get(1, TimeUnit.MINUTES);
+        assertEquals(saved, received);
+        List<String> streamed = storageService.streamAll(path, 10)
+                .map(StorageFile::getFileName)
+                .collect(Collectors.toList());
+        assertEquals(saved, streamed);
+    }
+
     @Test
     @SneakyThrows
     void findAllInNotExistingPath() {
@@ -291,6 +697,119 @@ public class MinIOStorageServiceImplTests {
         }
     }
 
+    @Test
+    void existsAllInFolderAndAcrossFolders() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        List<String> fileNames = new ArrayList<>();
+        Set<String> saved = new HashSet<>();
+        for (int i = 0; i < 40; i++) {
+            String fileName = storageService.fileName(
+                    path,
+                    "file" + i + ".txt"
+            );
+            fileNames.add(fileName);
+            if (i % 2 == 0) {
+                storageService.save(new StorageFile(
+                        "file" + i + ".txt",
+                        path,
+                        ContentType.TEXT_PLAIN.getMimeType(),
+                        new ByteArrayInputStream(new byte[]{1})
+                ));
+                saved.add(fileName);
+            }
+        }
+        storageService.save(new StorageFile(
+                "file.txt",
+                path.resolve("inner"),
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{1})
+        ));
+        fileNames.add(path + "/inner/file.txt");
+        saved.add(path + "/inner/file.txt");
+        fileNames.add(UUID.randomUUID() + ".txt");
+        assertEquals(saved, storageService.existsAll(fileNames));
+    }
+
+    @Test
+    @SneakyThrows
+    void saveKeepsContentEncoding() {
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        StorageFile file = new StorageFile(
+                "file.txt",
+                path,
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{1, 2, 3})
+        );
+        file.setContentEncoding("gzip");
+        storageService.save(file);
+        try (StorageFile found = storageService.find(
+                "file.txt",
+                path
+        ).orElseThrow()) {
+            assertEquals("gzip", found.getContentEncoding());
+        }
+        StorageFile listed = storageService.findAll(
+                path,
+                new CursorPage(10)
+        ).getFiles().get(0);
+        assertEquals("gzip", listed.getContentEncoding());
+    }
+
+    @Test
+    @SneakyThrows
+    void findIfChangedConfirmsCachedCopy() {
+        String fileName = UUID.randomUUID() + ".txt";
+        storageService.save(new StorageFile(
+                fileName,
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{1, 2, 3})
+        ));
+        StorageFile found = storageService.find(fileName).orElseThrow();
+        found.close();
+        assertEquals(3, found.getSize());
+        assertNotNull(found.getEtag());
+        assertNotNull(found.getLastModified());
+        ConditionalResult unchanged = storageService.findIfChanged(
+                fileName,
+                found.getEtag()
+        );
+        assertEquals(
+                ConditionalResult.Status.NOT_MODIFIED,
+                unchanged.getStatus()
+        );
+        assertNull(unchanged.getFile());
+        storageService.save(new StorageFile(
+                fileName,
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(new byte[]{4, 5, 6, 7})
+        ));
+        ConditionalResult changed = storageService.findIfChanged(
+                fileName,
+                found.getEtag()
+        );
+        assertEquals(ConditionalResult.Status.FOUND, changed.getStatus());
+        try (StorageFile file = changed.getFile()) {
+            assertNotEquals(found.getEtag(), file.getEtag());
+            assertArrayEquals(
+                    new byte[]{4, 5, 6, 7},
+                    file.getInputStream().readAllBytes()
+            );
+        }
+        assertEquals(
+                ConditionalResult.Status.NOT_FOUND,
+                storageService.findIfChanged(
+                        UUID.randomUUID() + ".txt",
+                        found.getEtag()
+                ).getStatus()
+        );
+    }
+
     @Test
     @SneakyThrows
     void deleteExistingFileWithoutPath() {
@@ -406,9 +925,11 @@ public class MinIOStorageServiceImplTests {
                     serviceAccount
             );
             storageService.save(file);
-            storageService.delete(
+            DeleteResult result = storageService.delete(
                     path
             );
+            assertEquals(1, result.getDeleted());
+            assertTrue(result.isSuccessful());
             boolean exists = storageService.exists(
                     "file1.txt",
                     path
@@ -417,6 +938,79 @@ public class MinIOStorageServiceImplTests {
         }
     }
 
+    @Test
+    @SneakyThrows
+    void saveFindAndDeleteAsync() {
+        try (InputStream serviceAccount = classLoader.getResourceAsStream(
+                "file1.txt"
+        )) {
+            Path path = Path.of(
+                    "folder",
+                    UUID.randomUUID().toString()
+            );
+            byte[] bytes = serviceAccount.readAllBytes();
+            StorageFile file = new StorageFile(
+                    "file1.txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(bytes)
+            );
+            storageService.saveAsync(file).join();
+            assertTrue(storageService.existsAsync("file1.txt", path).join());
+            Optional<StorageFile> savedFile = storageService.findAsync(
+                    "file1.txt",
+                    path
+            ).join();
+            assertTrue(savedFile.isPresent());
+            try (StorageFile found = savedFile.get()) {
+                assertArrayEquals(
+                        bytes,
+                        found.getInputStream().readAllBytes()
+                );
+            }
+            storageService.deleteAsync("file1.txt", path).join();
+            assertFalse(storageService.existsAsync("file1.txt", path).join());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void findAllAndDeleteFolderOnVirtualThreads() {
+        MinIOStorageServiceImpl virtualService = new MinIOStorageServiceImpl(
+                "http://" + minio.getHost() + ":" + minio.getMappedPort(9000),
+                "rootUser",
+                "rootPassword",
+                "bucket",
+                StorageOptions.builder()
+                        .executionMode(ExecutionMode.VIRTUAL_THREADS)
+                        .concurrency(2)
+                        .build()
+        );
+        Path path = Path.of(
+                "folder",
+                UUID.randomUUID().toString()
+        );
+        for (int i = 0; i < 3; i++) {
+            virtualService.save(new StorageFile(
+                    "file" + i + ".txt",
+                    path,
+                    ContentType.TEXT_PLAIN.getMimeType(),
+                    new ByteArrayInputStream(new byte[]{(byte) i})
+            ));
+        }
+        List<StorageFile> files = virtualService.findAll(
+                path,
+                new io.github.ilyalisov.storage.config.Page(
+                        1,
+                        10
+                )
+        );
+        assertEquals(3, files.size());
+        DeleteResult result = virtualService.delete(path);
+        assertEquals(3, result.getDeleted());
+        assertTrue(result.isSuccessful());
+    }
+
     @Test
     @SneakyThrows
     void deleteNotExistingFolder() {
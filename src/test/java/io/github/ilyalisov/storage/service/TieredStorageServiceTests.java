@@ -0,0 +1,186 @@
+package io.github.ilyalisov.storage.service;
+
+import io.github.ilyalisov.storage.config.StorageFile;
+import lombok.SneakyThrows;
+import org.apache.http.entity.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TieredStorageServiceTests {
+
+    private MapStorageService delegate;
+
+    private InMemoryStorageServiceImpl fastTier;
+
+    private TieredStorageService storageService;
+
+    @BeforeEach
+    void setup() {
+        delegate = new MapStorageService();
+        fastTier = new InMemoryStorageServiceImpl();
+        storageService = new TieredStorageService(delegate, fastTier, 10);
+    }
+
+    @SneakyThrows
+    private void save(
+            final String fileName,
+            final byte[] content
+    ) {
+        storageService.save(new StorageFile(
+                fileName,
+                ContentType.TEXT_PLAIN.getMimeType(),
+                new ByteArrayInputStream(content)
+        ));
+    }
+
+    @SneakyThrows
+    private byte[] read(
+            final String fileName
+    ) {
+        try (StorageFile file = storageService.find(fileName).orElseThrow()) {
+            return file.getInputStream().readAllBytes();
+        }
+    }
+
+    @Test
+    void promotesFileAfterRepeatedReads() {
+        byte[] content = {1, 2, 3};
+        save("file.txt", content);
+        assertArrayEquals(content, read("file.txt"));
+        assertEquals(0, storageService.getPromotions());
+        assertFalse(fastTier.exists("file.txt"));
+        assertArrayEquals(content, read("file.txt"));
+        assertEquals(1, storageService.getPromotions());
+        assertTrue(fastTier.exists("file.txt"));
+        assertArrayEquals(content, read("file.txt"));
+        assertEquals(2, delegate.finds.get());
+        assertEquals(1, storageService.getHits());
+        assertEquals(3, storageService.getPromotedBytes());
+    }
+
+    @Test
+    void writesGoToDurableStorage() {
+        save("file.txt", new byte[]{1, 2, 3});
+        read("file.txt");
+        read("file.txt");
+        assertTrue(fastTier.exists("file.txt"));
+        save("file.txt", new byte[]{4, 5});
+        assertArrayEquals(new byte[]{4, 5}, delegate.contents.get("file.txt"));
+        assertFalse(fastTier.exists("file.txt"));
+        assertArrayEquals(new byte[]{4, 5}, read("file.txt"));
+        storageService.delete("file.txt");
+        assertFalse(storageService.exists("file.txt"));
+        assertFalse(fastTier.exists("file.txt"));
+    }
+
+    @Test
+    void demotesLessFrequentFiles() {
+        save("hot.txt", new byte[6]);
+        save("warm.txt", new byte[6]);
+        for (int i = 0; i < 3; i++) {
+            read("hot.txt");
+        }
+        assertTrue(fastTier.exists("hot.txt"));
+        for (int i = 0; i < 3; i++) {
+            read("warm.txt");
+        }
+        assertFalse(fastTier.exists("warm.txt"));
+        assertEquals(1, storageService.getPromotions());
+        read("warm.txt");
+        assertTrue(fastTier.exists("warm.txt"));
+        assertFalse(fastTier.exists("hot.txt"));
+        assertEquals(1, storageService.getDemotions());
+        assertEquals(6, storageService.getPromotedBytes());
+    }
+
+    @Test
+    void doesNotPromoteFilesLargerThanLimit() {
+        save("file.txt", new byte[11]);
+        for (int i = 0; i < 3; i++) {
+            read("file.txt");
+        }
+        assertEquals(0, storageService.getPromotions());
+        assertEquals(3, delegate.finds.get());
+    }
+
+    @Test
+    void deleteFolderRemovesPromotedFiles() {
+        save("folder/file.txt", new byte[]{1});
+        read("folder/file.txt");
+        read("folder/file.txt");
+        assertTrue(fastTier.exists("folder/file.txt"));
+        storageService.delete(Path.of("folder"));
+        assertFalse(fastTier.exists("folder/file.txt"));
+        assertFalse(storageService.exists("folder/file.txt"));
+        assertEquals(0, storageService.getPromotedBytes());
+    }
+
+    @Test
+    void failedPromotionServesFileFromDurableStorage() {
+        storageService = new TieredStorageService(
+                delegate,
+                new InMemoryStorageServiceImpl(2),
+                10
+        );
+        byte[] content = {1, 2, 3, 4, 5};
+        save("file.txt", content);
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(content, read("file.txt"));
+        }
+        assertEquals(0, storageService.getPromotions());
+        assertEquals(0, storageService.getPromotedBytes());
+        assertEquals(0, storageService.getHits());
+    }
+
+    @Test
+    void writesOfOtherFilesDoNotDropPromotion() {
+        save("folder/file.txt", new byte[]{1});
+        read("folder/file.txt");
+        delegate.gate = new CountDownLatch(1);
+        delegate.arrived = new CountDownLatch(1);
+        CompletableFuture<byte[]> fetch = CompletableFuture.supplyAsync(
+                () -> read("folder/file.txt")
+        );
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            delegate.arrived.await();
+            save("folder/other.txt", new byte[]{2});
+            storageService.delete(Path.of("other"));
+            delegate.gate.countDown();
+            assertArrayEquals(new byte[]{1}, fetch.join());
+        });
+        assertEquals(1, storageService.getPromotions());
+        assertTrue(fastTier.exists("folder/file.txt"));
+    }
+
+    @Test
+    void saveDuringFetchIsNotPromoted() {
+        save("folder/file.txt", new byte[]{1});
+        read("folder/file.txt");
+        delegate.gate = new CountDownLatch(1);
+        delegate.arrived = new CountDownLatch(1);
+        CompletableFuture<byte[]> fetch = CompletableFuture.supplyAsync(
+                () -> read("folder/file.txt")
+        );
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            delegate.arrived.await();
+            save("folder/file.txt", new byte[]{2});
+            delegate.gate.countDown();
+            fetch.join();
+        });
+        assertEquals(0, storageService.getPromotions());
+        assertFalse(fastTier.exists("folder/file.txt"));
+    }
+
+}